@@ -0,0 +1,113 @@
+package id.ac.ui.cs.advprog.papikos.kos.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Per-node read-through cache of Kos by ID, bounded by size and TTL.
+ * Entries are detached snapshots that are never handed out directly: every hit returns a fresh copy, so callers
+ * may mutate what they get without corrupting the cache. Entries are evicted once a change to the Kos commits.
+ * Statistics are exported under the {@code kos.entity} cache name.
+ */
+@Component
+public class KosCache {
+
+    static final String CACHE_NAME = "kos.entity";
+
+    private final KosRepository kosRepository;
+
+    private final Cache<UUID, Kos> cache;
+
+    public KosCache(KosRepository kosRepository,
+                    @Value("${kos.cache.ttl:60s}") Duration ttl,
+                    @Value("${kos.cache.max-size:10000}") long maxSize,
+                    MeterRegistry meterRegistry) {
+        this.kosRepository = kosRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Finds a Kos by ID, loading it from the database on a miss. Missing Kos are not cached.
+     *
+     * @param kosId The UUID of the Kos.
+     * @return A copy of the cached Kos, or empty if no Kos with the given ID exists.
+     */
+    public Optional<Kos> findById(UUID kosId) {
+        Kos snapshot = cache.get(kosId, id -> kosRepository.findById(id).map(KosCache::copyOf).orElse(null));
+        return Optional.ofNullable(snapshot).map(KosCache::copyOf);
+    }
+
+    /**
+     * Finds many Kos by ID, loading every miss with a single query. Missing Kos are not cached.
+     *
+     * @param kosIds The UUIDs of the Kos.
+     * @return Copies of the Kos that exist, keyed by ID, in the order the IDs were given.
+     */
+    public Map<UUID, Kos> findAllById(Collection<UUID> kosIds) {
+        Map<UUID, Kos> snapshots = cache.getAll(kosIds, missingIds ->
+                kosRepository.findAllById(List.<UUID>copyOf(missingIds)).stream()
+                        .collect(Collectors.toMap(Kos::getId, KosCache::copyOf)));
+        Map<UUID, Kos> copies = new LinkedHashMap<>();
+        for (UUID kosId : kosIds) {
+            Kos snapshot = snapshots.get(kosId);
+            if (snapshot != null) {
+                copies.put(kosId, copyOf(snapshot));
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Returns the cached Kos without loading it on a miss. Does not count towards the cache statistics.
+     *
+     * @param kosId The UUID of the Kos.
+     * @return A copy of the cached Kos, or empty if it is not cached.
+     */
+    public Optional<Kos> getIfPresent(UUID kosId) {
+        return Optional.ofNullable(cache.asMap().get(kosId)).map(KosCache::copyOf);
+    }
+
+    /**
+     * Evicts a Kos from this node's cache.
+     *
+     * @param kosId The UUID of the Kos.
+     */
+    public void evict(UUID kosId) {
+        cache.invalidate(kosId);
+    }
+
+    // After commit, so a concurrent miss cannot reload the row as it was before the change
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onKosChanged(KosChangedEvent event) {
+        evict(event.getKosId());
+    }
+
+    static Kos copyOf(Kos kos) {
+        return new Kos(kos.getId(), kos.getOwnerUserId(), kos.getName(), kos.getAddress(), kos.getDescription(),
+                kos.getNumRooms(), kos.getMonthlyRentPrice(), kos.getOccupiedRooms(), kos.getIsListed(),
+                kos.getCreatedAt(), kos.getUpdatedAt());
+    }
+}
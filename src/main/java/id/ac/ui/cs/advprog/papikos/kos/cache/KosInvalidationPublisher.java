@@ -0,0 +1,90 @@
+package id.ac.ui.cs.advprog.papikos.kos.cache;
+
+import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosInvalidationMessage;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tells the other replicas which Kos changed on this node, so they can drop their local copies.
+ * Committed changes are collected and flushed on a short fixed delay, so a bulk update becomes a handful of
+ * messages, each carrying up to {@link #MAX_IDS_PER_MESSAGE} IDs, instead of one message per row.
+ */
+@Component
+@ConditionalOnProperty(name = "kos.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class KosInvalidationPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(KosInvalidationPublisher.class);
+
+    static final int MAX_IDS_PER_MESSAGE = 500;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    // Identifies this replica, so it can skip its own broadcasts; it already applied them at commit
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Set<UUID> pendingKosIds = ConcurrentHashMap.newKeySet();
+
+    public KosInvalidationPublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onKosChanged(KosChangedEvent event) {
+        pendingKosIds.add(event.getKosId());
+    }
+
+    /**
+     * Publishes the Kos changed since the previous flush. IDs that fail to publish are kept for the next flush;
+     * until then the other replicas serve their copies for at most the cache TTL.
+     */
+    @Scheduled(fixedDelayString = "${kos.cache.invalidation.coalesce-window:PT0.2S}")
+    public void flush() {
+        List<UUID> batch = new ArrayList<>();
+        Iterator<UUID> pending = pendingKosIds.iterator();
+        while (pending.hasNext()) {
+            batch.add(pending.next());
+            pending.remove();
+            if (batch.size() == MAX_IDS_PER_MESSAGE) {
+                if (!publish(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            publish(batch);
+        }
+    }
+
+    private boolean publish(List<UUID> kosIds) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.KOS_INVALIDATION_EXCHANGE_NAME, "",
+                    new KosInvalidationMessage(nodeId, kosIds));
+            return true;
+        } catch (AmqpException e) {
+            pendingKosIds.addAll(kosIds);
+            logger.warn("Failed to publish invalidation of {} Kos, will retry: {}", kosIds.size(), e.getMessage());
+            return false;
+        }
+    }
+}
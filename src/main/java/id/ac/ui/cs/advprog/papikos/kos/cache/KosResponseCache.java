@@ -0,0 +1,137 @@
+package id.ac.ui.cs.advprog.papikos.kos.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-node cache of encoded Kos detail responses, so a Kos is serialized once per change rather than once per read.
+ * Each entry records the {@code updatedAt} it was encoded from and is only served while that is still the current
+ * version; entries are also evicted once a change to the Kos commits. The size bound is on the encoded JSON and gzip
+ * bytes an entry holds.
+ * Statistics are exported under the {@code kos.response} cache name.
+ */
+@Component
+public class KosResponseCache {
+
+    static final String CACHE_NAME = "kos.response";
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<UUID, EncodedResponse> cache;
+
+    public KosResponseCache(ObjectMapper objectMapper,
+                            @Value("${kos.response-cache.max-bytes:67108864}") long maxBytes,
+                            MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((UUID kosId, EncodedResponse response) -> response.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the encoded response for a Kos at the given version, encoding it on a miss or a version mismatch.
+     *
+     * @param kosId   The UUID of the Kos.
+     * @param version The current {@code updatedAt} of the Kos.
+     * @param loader  Loads the Kos on a miss.
+     * @param body    Builds the response body to encode from the loaded Kos.
+     * @return The encoded response; its version is that of the Kos it was encoded from.
+     */
+    public EncodedResponse get(UUID kosId, LocalDateTime version, Supplier<Kos> loader, Function<Kos, ?> body) {
+        EncodedResponse cached = cache.getIfPresent(kosId);
+        if (cached != null && Objects.equals(cached.version, version)) {
+            return cached;
+        }
+        Kos kos = loader.get();
+        EncodedResponse encoded;
+        try {
+            encoded = new EncodedResponse(kos.getUpdatedAt(), objectMapper.writeValueAsBytes(body.apply(kos)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode Kos " + kosId, e);
+        }
+        cache.put(kosId, encoded);
+        return encoded;
+    }
+
+    /**
+     * Evicts a Kos response from this node's cache.
+     *
+     * @param kosId The UUID of the Kos.
+     */
+    public void evict(UUID kosId) {
+        cache.invalidate(kosId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onKosChanged(KosChangedEvent event) {
+        evict(event.getKosId());
+    }
+
+    /**
+     * A response body encoded as UTF-8 JSON, along with its gzip encoding.
+     */
+    public static final class EncodedResponse {
+
+        private final LocalDateTime version;
+
+        private final byte[] json;
+
+        // Compressed up front rather than on first use, so the cache weighs the entry as it will be held
+        private final byte[] gzip;
+
+        EncodedResponse(LocalDateTime version, byte[] json) {
+            this.version = version;
+            this.json = json;
+            this.gzip = compress(json);
+        }
+
+        public LocalDateTime getVersion() {
+            return version;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        int weight() {
+            return json.length + gzip.length;
+        }
+
+        private static byte[] compress(byte[] bytes) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2 + 64);
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(buffer)) {
+                gzipOutputStream.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
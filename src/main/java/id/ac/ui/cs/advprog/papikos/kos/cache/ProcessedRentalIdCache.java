@@ -0,0 +1,43 @@
+package id.ac.ui.cs.advprog.papikos.kos.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import id.ac.ui.cs.advprog.papikos.kos.event.RentalEventsProcessedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Per-node, size-bounded set of recently processed rental IDs, consulted before the processed events table so
+ * the common redelivery of a recent event is skipped without a query. Only committed records are added, so a hit
+ * is always a true duplicate; a miss just falls through to the table. Statistics are exported under the
+ * {@code kos.rental.processed} cache name.
+ */
+@Component
+public class ProcessedRentalIdCache {
+
+    static final String CACHE_NAME = "kos.rental.processed";
+
+    private final Cache<String, Boolean> cache;
+
+    public ProcessedRentalIdCache(@Value("${kos.rental.dedupe.recent-ids-max-size:100000}") long maxSize,
+                                  MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public boolean contains(String rentalId) {
+        return cache.getIfPresent(rentalId) != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRentalEventsProcessed(RentalEventsProcessedEvent event) {
+        event.getRentalIds().forEach(rentalId -> cache.put(rentalId, Boolean.TRUE));
+    }
+}
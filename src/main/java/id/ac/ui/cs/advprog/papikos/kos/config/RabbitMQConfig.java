@@ -1,22 +1,42 @@
 package id.ac.ui.cs.advprog.papikos.kos.config;
 
+import id.ac.ui.cs.advprog.papikos.kos.listener.RentalEventRecoverer;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class RabbitMQConfig {
 
     public static final String TOPIC_EXCHANGE_NAME = "rental.topic";
     public static final String ROUTING_KEY_RENTAL_CREATED = "rental.created";
     public static final String KOS_QUEUE_NAME = "kos.rental.created.queue";
+    public static final String KOS_INVALIDATION_EXCHANGE_NAME = "kos.invalidation.fanout";
+    public static final String KOS_DEAD_LETTER_EXCHANGE_NAME = "kos.rental.dlx";
+    public static final String KOS_DEAD_LETTER_QUEUE_NAME = "kos.rental.created.dlq";
+    public static final String RENTAL_CONTAINER_FACTORY = "rentalContainerFactory";
+    public static final String RENTAL_BATCH_CONTAINER_FACTORY = "rentalBatchContainerFactory";
+    public static final String RENTAL_SHARDED_CONTAINER_FACTORY = "rentalShardedContainerFactory";
 
     @Bean
     public TopicExchange rentalTopicExchange() {
@@ -38,6 +58,11 @@ public class RabbitMQConfig {
 
     @Bean
     Queue kosQueue() {
+        // Declared with the same arguments as the deployed queue: RabbitMQ refuses to redeclare a queue with
+        // different ones. Failed events are dead-lettered by RentalEventRecoverer; for messages the broker itself
+        // drops or a consumer rejects, the dead-letter exchange comes from a policy, which applies to the live queue:
+        //   rabbitmqctl set_policy --apply-to queues kos-rental-dlx '^kos\.rental\.created\.queue$' \
+        //     '{"dead-letter-exchange":"kos.rental.dlx","dead-letter-routing-key":"kos.rental.created.dlq"}'
         // durable: true, exclusive: false, autoDelete: false
         return new Queue(KOS_QUEUE_NAME, true, false, false);
     }
@@ -46,4 +71,102 @@ public class RabbitMQConfig {
     Binding kosBinding(Queue kosQueue, TopicExchange exchange) {
         return BindingBuilder.bind(kosQueue).to(exchange).with(ROUTING_KEY_RENTAL_CREATED);
     }
+
+    @Bean
+    public DirectExchange kosDeadLetterExchange() {
+        return new DirectExchange(KOS_DEAD_LETTER_EXCHANGE_NAME);
+    }
+
+    @Bean
+    Queue kosDeadLetterQueue() {
+        return QueueBuilder.durable(KOS_DEAD_LETTER_QUEUE_NAME).build();
+    }
+
+    @Bean
+    Binding kosDeadLetterBinding(Queue kosDeadLetterQueue, DirectExchange kosDeadLetterExchange) {
+        return BindingBuilder.bind(kosDeadLetterQueue).to(kosDeadLetterExchange).with(KOS_DEAD_LETTER_QUEUE_NAME);
+    }
+
+    // One queue per retry delay, with no consumers: a message waits out the queue's TTL, then is dead-lettered
+    // back onto the rental queue through the default exchange
+    @Bean
+    Declarables kosRetryQueues(RentalRetryPolicy retryPolicy) {
+        return new Declarables(retryPolicy.getDelays().stream()
+                .distinct()
+                .map(delay -> QueueBuilder.durable(RentalRetryPolicy.retryQueueName(delay))
+                        .ttl((int) delay.toMillis())
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(KOS_QUEUE_NAME)
+                        .build())
+                .toList());
+    }
+
+    // A rental event that fails is handed to the recoverer on its first failure instead of being requeued, and is
+    // acknowledged once the recoverer has scheduled its retry or dead-lettered it
+    @Bean(name = RENTAL_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "kos.rental.consumer.mode", havingValue = "single", matchIfMissing = true)
+    SimpleRabbitListenerContainerFactory rentalContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            RentalEventRecoverer rentalEventRecoverer) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(1)
+                .recoverer(rentalEventRecoverer)
+                .build());
+        return factory;
+    }
+
+    // Hands rental events to the listener in batches of up to batch-size, or fewer once receive-timeout passes
+    // without a new message. Acknowledgement is manual so single messages of a batch can be rejected
+    @Bean(name = RENTAL_BATCH_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "kos.rental.consumer.mode", havingValue = "batch")
+    SimpleRabbitListenerContainerFactory rentalBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${kos.rental.batch.size:100}") int batchSize,
+            @Value("${kos.rental.batch.receive-timeout:PT0.5S}") Duration receiveTimeout) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeout.toMillis());
+        // A smaller prefetch than the batch would leave every batch waiting out the receive timeout
+        factory.setPrefetchCount(batchSize);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
+
+    // A single consumer, so events leave the queue in order; the parallelism comes from the shards behind it, which
+    // several consumers on the same queue would race. The prefetch bounds how many events wait in the shards
+    @Bean(name = RENTAL_SHARDED_CONTAINER_FACTORY)
+    @ConditionalOnProperty(name = "kos.rental.consumer.mode", havingValue = "sharded")
+    SimpleRabbitListenerContainerFactory rentalShardedContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${kos.rental.sharded.prefetch:250}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setPrefetchCount(prefetch);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
+
+    // Every replica receives every Kos invalidation, so each one needs its own queue on the fanout exchange
+    @Bean
+    public FanoutExchange kosInvalidationExchange() {
+        return new FanoutExchange(KOS_INVALIDATION_EXCHANGE_NAME);
+    }
+
+    @Bean
+    Queue kosInvalidationQueue() {
+        // Uniquely named per instance; non-durable, exclusive and auto-delete, so it disappears with the replica
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    Binding kosInvalidationBinding(Queue kosInvalidationQueue, FanoutExchange kosInvalidationExchange) {
+        return BindingBuilder.bind(kosInvalidationQueue).to(kosInvalidationExchange);
+    }
 }
@@ -0,0 +1,89 @@
+package id.ac.ui.cs.advprog.papikos.kos.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import id.ac.ui.cs.advprog.papikos.kos.exception.KosNotFoundException;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How failed rental events are retried: how many times, after which delays, and which failures are not worth
+ * retrying at all.
+ */
+@Component
+public class RentalRetryPolicy {
+
+    // Failures that will recur on every redelivery of the same message, such as a malformed event or a booking for
+    // a Kos that does not exist or is full
+    private static final List<Class<? extends Throwable>> FATAL_FAILURES = List.of(
+            KosNotFoundException.class,
+            IllegalArgumentException.class,
+            NullPointerException.class,
+            MessageConversionException.class,
+            JsonProcessingException.class);
+
+    private final List<Duration> delays;
+
+    public RentalRetryPolicy(@Value("${kos.rental.retry.max-retries:4}") int maxRetries,
+                             @Value("${kos.rental.retry.initial-interval:PT1S}") Duration initialInterval,
+                             @Value("${kos.rental.retry.multiplier:4}") double multiplier,
+                             @Value("${kos.rental.retry.max-interval:PT5M}") Duration maxInterval) {
+        List<Duration> delays = new ArrayList<>(maxRetries);
+        for (int retry = 0; retry < maxRetries; retry++) {
+            long millis = (long) (initialInterval.toMillis() * Math.pow(multiplier, retry));
+            delays.add(Duration.ofMillis(Math.min(millis, maxInterval.toMillis())));
+        }
+        this.delays = Collections.unmodifiableList(delays);
+    }
+
+    public int getMaxRetries() {
+        return delays.size();
+    }
+
+    /**
+     * @return The delay before each retry, the first retry first; capped delays repeat.
+     */
+    public List<Duration> getDelays() {
+        return delays;
+    }
+
+    /**
+     * @param retry The retry, counting from 1 up to {@link #getMaxRetries()}.
+     * @return The queue a message waits in before that retry.
+     */
+    public String getRetryQueueName(int retry) {
+        return retryQueueName(delays.get(retry - 1));
+    }
+
+    /**
+     * Retry queues are named after their delay, so changing the delays declares new queues instead of clashing
+     * with the TTL of existing ones.
+     */
+    public static String retryQueueName(Duration delay) {
+        return RabbitMQConfig.KOS_QUEUE_NAME + ".retry." + delay.toMillis() + "ms";
+    }
+
+    /**
+     * Only the failure itself and its immediate cause are looked at: a fatal exception buried deeper usually belongs
+     * to something other than the message, and walking the whole chain would dead-letter healthy events with it.
+     *
+     * @return Whether {@code failure}, or its immediate cause, is one a retry cannot fix.
+     */
+    public boolean isFatal(Throwable failure) {
+        return isFatalType(failure) || (failure != null && isFatalType(failure.getCause()));
+    }
+
+    private static boolean isFatalType(Throwable failure) {
+        for (Class<? extends Throwable> fatal : FATAL_FAILURES) {
+            if (fatal.isInstance(failure)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,6 +1,8 @@
 package id.ac.ui.cs.advprog.papikos.kos.config;
 
+import id.ac.ui.cs.advprog.papikos.kos.security.TokenAuthenticationEntryPoint;
 import id.ac.ui.cs.advprog.papikos.kos.security.TokenAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -32,13 +34,24 @@ public class SecurityConfig {
                 )
                 .authorizeHttpRequests(authorizeRequests ->
                         authorizeRequests
+                                // Async dispatches (e.g. streamed exports) only follow a request that was already authorized
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                                 // Define public GET endpoints
                                 .requestMatchers(HttpMethod.GET, "/api/v1/health").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/api/v1/kos/search").permitAll() // Assuming search is public
-                                .requestMatchers(HttpMethod.GET, "/api/v1/kos/{kosId}").permitAll() // Assuming find by ID is public
+                                .requestMatchers(HttpMethod.GET, "/api/v1/kos/filter").permitAll()
+                                // Kos detail lives at /api/v1/{id}; the single-segment routes beside it stay protected
+                                .requestMatchers(HttpMethod.GET, "/api/v1/my", "/api/v1/export").authenticated()
+                                .requestMatchers(HttpMethod.GET, "/api/v1/{id}").permitAll() // Assuming find by ID is public
+                                // Replaying the rental dead-letter queue is reserved for internal callers
+                                .requestMatchers("/actuator/rentaldlq").hasAuthority("INTERNAL")
                                 // All other requests must be authenticated
                                 .anyRequest().authenticated()
                 )
+                // Bearer tokens are verified lazily, so rejected tokens surface here instead of in the filter
+                .exceptionHandling(exceptionHandling -> exceptionHandling
+                        .authenticationEntryPoint(new TokenAuthenticationEntryPoint())
+                )
                 // Add your custom token filter before the standard username/password filter
                 .addFilterBefore(tokenAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -1,29 +1,58 @@
 package id.ac.ui.cs.advprog.papikos.kos.controller;
 
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosResponseCache;
+import id.ac.ui.cs.advprog.papikos.kos.dto.CursorPage;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosBatch;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosField;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosFilter;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosListVersion;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosSummary;
+import id.ac.ui.cs.advprog.papikos.kos.dto.SlicePage;
 import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
 import id.ac.ui.cs.advprog.papikos.kos.response.ApiResponse;
 import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.coyote.BadRequestException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/v1")
 public class KosController {
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private final KosService kosService;
 
+    private final KosResponseCache kosResponseCache;
+
     // constructor
-    public KosController(KosService kosService) {
+    public KosController(KosService kosService, KosResponseCache kosResponseCache) {
         this.kosService = kosService;
+        this.kosResponseCache = kosResponseCache;
     }
 
     /**
@@ -43,6 +72,78 @@ public class KosController {
         }
     }
 
+    /**
+     * Builds a strong ETag from the values that identify a representation's state.
+     */
+    private static String strongETag(Object... parts) {
+        String state = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        return "\"" + DigestUtils.md5DigestAsHex(state.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Gives the ETag of the gzip encoding of a representation. The two encodings differ byte for byte, so they must
+     * not share a strong validator.
+     */
+    private static String gzipETag(String eTag) {
+        return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+    }
+
+    private static String detailETag(UUID kosId, LocalDateTime version, boolean gzip) {
+        String eTag = strongETag(kosId, version);
+        return gzip ? gzipETag(eTag) : eTag;
+    }
+
+    /**
+     * Whether the client accepts gzip, honouring q-values: {@code gzip;q=0} refuses it, and a {@code *} entry
+     * applies only when gzip is not listed itself.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return quality != null && quality > 0;
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? -1 : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+    }
+
+    private static ResponseEntity.BodyBuilder okWithValidators(String eTag, LocalDateTime lastModified,
+                                                               CacheControl cacheControl) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(eTag).cacheControl(cacheControl);
+        if (lastModified != null) {
+            builder.lastModified(epochMillis(lastModified));
+        }
+        return builder;
+    }
+
     /**
      * Healthcheck endpoint.
      *
@@ -77,44 +178,270 @@ public class KosController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Lists Kos in pages ordered by creation time.
+     *
+     * @param limit Maximum number of Kos per page (capped at 100).
+     * @param after Opaque cursor returned as {@code nextCursor} by the previous page; omit for the first page.
+     * @return ResponseEntity with ApiResponse containing the page and the next cursor.
+     */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Kos>>> getAllKos() {
-        List<Kos> kosList;
-        String message;
+    public ResponseEntity<ApiResponse<CursorPage<KosSummary>>> getAllKos(@RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                                         @RequestParam(value = "after", required = false) String after) {
+        CursorPage<KosSummary> kosPage;
+        try {
+            kosPage = kosService.findKosPage(after, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.<CursorPage<KosSummary>>builder().badRequest(e.getMessage()));
+        }
 
-        kosList = kosService.findAllKos();
-        message = "Kos list fetched successfully";
+        ApiResponse<CursorPage<KosSummary>> response = ApiResponse.<CursorPage<KosSummary>>builder()
+                .status(HttpStatus.OK)
+                .message("Kos list fetched successfully")
+                .data(kosPage)
+                .build();
+        return ResponseEntity.ok(response);
+    }
 
-        ApiResponse<List<Kos>> response = ApiResponse.<List<Kos>>builder()
+    /**
+     * Lists Kos in pages like {@link #getAllKos(int, String)}, returning and reading only the requested fields.
+     *
+     * @param limit  Maximum number of Kos per page (capped at 100).
+     * @param after  Opaque cursor returned as {@code nextCursor} by the previous page; omit for the first page.
+     * @param fields Comma-separated field names, e.g. {@code id,name,monthlyRentPrice}.
+     * @return ResponseEntity with ApiResponse containing the page and the next cursor.
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<ApiResponse<CursorPage<Map<String, Object>>>> getAllKosFields(
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam("fields") String fields) {
+        CursorPage<Map<String, Object>> kosPage;
+        try {
+            kosPage = kosService.findKosFieldPage(after, limit, KosField.parse(fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.<CursorPage<Map<String, Object>>>builder().badRequest(e.getMessage()));
+        }
+
+        ApiResponse<CursorPage<Map<String, Object>>> response = ApiResponse.<CursorPage<Map<String, Object>>>builder()
                 .status(HttpStatus.OK)
-                .message(message)
-                .data(kosList)
+                .message("Kos list fetched successfully")
+                .data(kosPage)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams every Kos as newline-delimited JSON for internal consumers such as analytics and the search indexer.
+     * The body is gzip compressed when the client accepts it.
+     *
+     * @param acceptEncoding The client's Accept-Encoding header.
+     * @return ResponseEntity whose body writes the export directly to the response output stream.
+     */
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasAuthority('INTERNAL')")
+    public ResponseEntity<StreamingResponseBody> exportKos(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 64 * 1024);
+                kosService.exportKos(gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                kosService.exportKos(outputStream);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Looks up many Kos in one request, for other services rendering lists of Kos.
+     *
+     * @param kosIds The UUIDs of the Kos, as a JSON array.
+     * @return The Kos found, keyed by ID, and the IDs that do not exist.
+     */
+    @PostMapping("/kos/batch")
+    @PreAuthorize("hasAuthority('INTERNAL')")
+    public ResponseEntity<ApiResponse<KosBatch>> getKosBatch(@RequestBody List<UUID> kosIds) {
+        KosBatch batch;
+        try {
+            batch = kosService.findKosByIds(kosIds);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.<KosBatch>builder().badRequest(e.getMessage()));
+        }
+        ApiResponse<KosBatch> response = ApiResponse.<KosBatch>builder()
+                .status(HttpStatus.OK)
+                .message("Kos batch fetched successfully")
+                .data(batch)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Full-text search over Kos name, address and description, best match first.
+     *
+     * @param keyword The search term.
+     * @param limit   Maximum number of results (capped at 100).
+     * @param offset  Number of ranked results to skip.
+     * @return ResponseEntity with ApiResponse containing summaries of the matching Kos.
+     */
+    @GetMapping("/kos/search")
+    public ResponseEntity<ApiResponse<List<KosSummary>>> searchKos(@RequestParam(value = "keyword", required = false) String keyword,
+                                                                   @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                                   @RequestParam(value = "offset", defaultValue = "0") int offset) {
+        List<KosSummary> results;
+        try {
+            results = kosService.searchKos(keyword, limit, offset);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.<List<KosSummary>>builder().badRequest(e.getMessage()));
+        }
+        ApiResponse<List<KosSummary>> response = ApiResponse.<List<KosSummary>>builder()
+                .status(HttpStatus.OK)
+                .message("Kos search results fetched successfully")
+                .data(results)
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/kos/filter")
+    public ResponseEntity<ApiResponse<SlicePage<KosSummary>>> filterKos(@RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                                                      @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+                                                                      @RequestParam(value = "minFreeRooms", required = false) Integer minFreeRooms,
+                                                                      @RequestParam(value = "sort", defaultValue = "newest") String sort,
+                                                                      @RequestParam(value = "page", defaultValue = "0") int page,
+                                                                      @RequestParam(value = "size", defaultValue = "20") int size) {
+        SlicePage<KosSummary> results;
+        try {
+            KosFilter filter = KosFilter.builder()
+                    .minPrice(minPrice)
+                    .maxPrice(maxPrice)
+                    .minFreeRooms(minFreeRooms)
+                    .sort(KosFilter.Sort.valueOf(sort.toUpperCase(Locale.ROOT)))
+                    .build();
+            results = kosService.filterKos(filter, page, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.<SlicePage<KosSummary>>builder().badRequest(e.getMessage()));
+        }
+        ApiResponse<SlicePage<KosSummary>> response = ApiResponse.<SlicePage<KosSummary>>builder()
+                .status(HttpStatus.OK)
+                .message("Filtered Kos fetched successfully")
+                .data(results)
                 .build();
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/my")
     @PreAuthorize("hasAuthority('OWNER')")
-    public ResponseEntity<ApiResponse<List<Kos>>> getMyKos(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<KosSummary>>> getMyKos(Authentication authentication, WebRequest webRequest) {
         UUID ownerUserId = getUserIdFromAuthentication(authentication);
-        List<Kos> myKosList = kosService.findKosByOwnerUserId(ownerUserId);
-        ApiResponse<List<Kos>> response = ApiResponse.<List<Kos>>builder()
+        // Validated against the list's count and latest modification, so an unchanged list is never loaded
+        KosListVersion version = kosService.findKosListVersionByOwnerUserId(ownerUserId);
+        String eTag = strongETag(ownerUserId, version.getCount(), version.getLastUpdatedAt());
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (webRequest.checkNotModified(eTag, epochMillis(version.getLastUpdatedAt()))) {
+            return notModified(eTag, cacheControl);
+        }
+
+        List<KosSummary> myKosList = kosService.findKosByOwnerUserId(ownerUserId);
+        ApiResponse<List<KosSummary>> response = ApiResponse.<List<KosSummary>>builder()
                 .status(HttpStatus.OK)
                 .message("Owner's Kos list fetched successfully")
                 .data(myKosList)
                 .build();
-        return ResponseEntity.ok(response);
+        return okWithValidators(eTag, version.getLastUpdatedAt(), cacheControl).body(response);
+    }
+
+    @GetMapping(value = "/my", params = "fields")
+    @PreAuthorize("hasAuthority('OWNER')")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getMyKosFields(@RequestParam("fields") String fields,
+                                                                                 Authentication authentication,
+                                                                                 WebRequest webRequest) {
+        UUID ownerUserId = getUserIdFromAuthentication(authentication);
+        Set<KosField> fieldSet;
+        try {
+            fieldSet = KosField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.<List<Map<String, Object>>>builder().badRequest(e.getMessage()));
+        }
+        KosListVersion version = kosService.findKosListVersionByOwnerUserId(ownerUserId);
+        String eTag = strongETag(ownerUserId, version.getCount(), version.getLastUpdatedAt(), fieldSet);
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (webRequest.checkNotModified(eTag, epochMillis(version.getLastUpdatedAt()))) {
+            return notModified(eTag, cacheControl);
+        }
+
+        List<Map<String, Object>> myKosList = kosService.findKosFieldsByOwnerUserId(ownerUserId, fieldSet);
+        ApiResponse<List<Map<String, Object>>> response = ApiResponse.<List<Map<String, Object>>>builder()
+                .status(HttpStatus.OK)
+                .message("Owner's Kos list fetched successfully")
+                .data(myKosList)
+                .build();
+        return okWithValidators(eTag, version.getLastUpdatedAt(), cacheControl).body(response);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<Kos>> getKosById(@PathVariable("id") UUID kosId) {
-        Kos kos = kosService.findKosById(kosId);
-        ApiResponse<Kos> response = ApiResponse.<Kos>builder()
+    public ResponseEntity<byte[]> getKosById(@PathVariable("id") UUID kosId,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             WebRequest webRequest) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        LocalDateTime lastModified = kosService.findKosLastModified(kosId);
+        String eTag = detailETag(kosId, lastModified, gzip);
+        CacheControl cacheControl = CacheControl.noCache();
+        if (webRequest.checkNotModified(eTag, epochMillis(lastModified))) {
+            return notModified(eTag, cacheControl);
+        }
+
+        // Serialized once per change of the Kos; the cached bytes are written to the response as they are
+        KosResponseCache.EncodedResponse encoded = kosResponseCache.get(kosId, lastModified,
+                () -> kosService.findKosById(kosId),
+                kos -> ApiResponse.<Kos>builder()
+                        .status(HttpStatus.OK)
+                        .message("Kos details fetched successfully")
+                        .data(kos)
+                        .build());
+        // Validators come from the encoded Kos, in case it changed since the check above
+        LocalDateTime version = encoded.getVersion();
+        ResponseEntity.BodyBuilder response = okWithValidators(detailETag(kosId, version, gzip), version, cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(encoded.getGzip());
+        }
+        return response.body(encoded.getJson());
+    }
+
+    // Narrowed responses are small and vary per field set, so they are read per request instead of cached
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getKosFieldsById(@PathVariable("id") UUID kosId,
+                                                                             @RequestParam("fields") String fields,
+                                                                             WebRequest webRequest) {
+        Set<KosField> fieldSet;
+        try {
+            fieldSet = KosField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.<Map<String, Object>>builder().badRequest(e.getMessage()));
+        }
+        LocalDateTime lastModified = kosService.findKosLastModified(kosId);
+        String eTag = strongETag(kosId, lastModified, fieldSet);
+        CacheControl cacheControl = CacheControl.noCache();
+        if (webRequest.checkNotModified(eTag, epochMillis(lastModified))) {
+            return notModified(eTag, cacheControl);
+        }
+
+        ApiResponse<Map<String, Object>> response = ApiResponse.<Map<String, Object>>builder()
                 .status(HttpStatus.OK)
                 .message("Kos details fetched successfully")
-                .data(kos)
+                .data(kosService.findKosFieldsById(kosId, fieldSet))
                 .build();
-        return ResponseEntity.ok(response);
+        return okWithValidators(eTag, lastModified, cacheControl).body(response);
     }
 
     @PatchMapping("/{id}")
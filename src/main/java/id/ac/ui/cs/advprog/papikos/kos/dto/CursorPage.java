@@ -0,0 +1,18 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a keyset paginated listing.
+ * {@code nextCursor} is an opaque token to pass as {@code after} for the next page,
+ * or {@code null} when this is the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+}
@@ -0,0 +1,19 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Result of a batch lookup: the Kos that exist, keyed by ID, and the requested IDs that do not.
+ */
+@Getter
+@AllArgsConstructor
+public class KosBatch {
+    private final Map<UUID, Kos> found;
+    private final List<UUID> missing;
+}
@@ -0,0 +1,77 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The Kos fields a client may ask for with the {@code fields} query parameter.
+ * Each field is named as it appears in the full JSON representation of a Kos.
+ */
+public enum KosField {
+    ID("id", "id"),
+    OWNER_USER_ID("ownerUserId", "ownerUserId"),
+    NAME("name", "name"),
+    ADDRESS("address", "address"),
+    DESCRIPTION("description", "description"),
+    NUM_ROOMS("numRooms", "numRooms"),
+    MONTHLY_RENT_PRICE("monthlyRentPrice", "monthlyRentPrice"),
+    OCCUPIED_ROOMS("occupiedRooms", "occupiedRooms"),
+    // Derived from numRooms and occupiedRooms, so it has no attribute of its own
+    FREE_ROOMS("freeRooms", null),
+    IS_LISTED("isListed", "isListed"),
+    CREATED_AT("createdAt", "createdAt"),
+    UPDATED_AT("updatedAt", "updatedAt");
+
+    private final String jsonName;
+
+    private final String attribute;
+
+    KosField(String jsonName, String attribute) {
+        this.jsonName = jsonName;
+        this.attribute = attribute;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * @return The name of the Kos entity attribute this field is read from, or {@code null} for a derived field.
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    /**
+     * Parses a comma-separated list of field names, such as {@code id,name,monthlyRentPrice}.
+     *
+     * @param fields The field names; blank entries and repeats are ignored.
+     * @return The requested fields, in declaration order.
+     * @throws IllegalArgumentException if no field is named or a name is not one of the known fields.
+     */
+    public static Set<KosField> parse(String fields) throws IllegalArgumentException {
+        Set<KosField> parsed = EnumSet.noneOf(KosField.class);
+        if (fields != null) {
+            for (String name : fields.split(",")) {
+                String trimmed = name.trim();
+                if (!trimmed.isEmpty()) {
+                    parsed.add(fromJsonName(trimmed));
+                }
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be requested.");
+        }
+        return Collections.unmodifiableSet(parsed);
+    }
+
+    private static KosField fromJsonName(String jsonName) {
+        for (KosField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field '" + jsonName + "'.");
+    }
+}
@@ -0,0 +1,26 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Criteria for the structured Kos filter. Only listed Kos are ever returned.
+ * Unset bounds are left {@code null} and replaced by open defaults in the service.
+ */
+@Getter
+@Builder
+public class KosFilter {
+
+    public enum Sort {
+        PRICE,
+        NEWEST
+    }
+
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final Integer minFreeRooms;
+    @Builder.Default
+    private final Sort sort = Sort.NEWEST;
+}
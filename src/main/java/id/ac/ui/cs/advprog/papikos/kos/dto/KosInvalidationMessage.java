@@ -0,0 +1,25 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Broadcast to every replica when Kos change, so each one can drop or refresh its local copies.
+ * One message carries every Kos changed on the sending node within a coalescing window.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KosInvalidationMessage implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String sourceNodeId;
+    private List<UUID> kosIds;
+}
@@ -0,0 +1,17 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identifies the state of a Kos list without loading it, for conditional requests.
+ * The count catches deletions, which leave the latest modification time unchanged.
+ */
+@Getter
+@AllArgsConstructor
+public class KosListVersion {
+    private final long count;
+    private final LocalDateTime lastUpdatedAt;
+}
@@ -0,0 +1,24 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/**
+ * A change to the occupied room count of a Kos, such as one rental event.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class KosOccupancyChange {
+
+    private final UUID kosId;
+
+    // Rooms newly occupied; negative when rooms are vacated
+    private final int delta;
+
+    // ID of the rental event this change comes from, so redeliveries can be recognised; null if it has none
+    private final String rentalId;
+}
@@ -0,0 +1,30 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only list row for a Kos, selected directly by JPQL constructor expressions.
+ * It never becomes a managed entity and leaves out the full description and address TEXT columns.
+ */
+@Getter
+@AllArgsConstructor
+public class KosSummary {
+
+    /**
+     * Number of address characters kept in a summary.
+     */
+    public static final int SHORT_ADDRESS_LENGTH = 100;
+
+    private final UUID id;
+    private final String name;
+    private final String shortAddress;
+    private final BigDecimal monthlyRentPrice;
+    private final Integer freeRooms;
+    private final Boolean isListed;
+    private final LocalDateTime createdAt;
+}
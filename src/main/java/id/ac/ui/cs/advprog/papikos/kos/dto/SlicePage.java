@@ -0,0 +1,18 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a numbered listing. {@code hasNext} is determined without a count query.
+ */
+@Getter
+@AllArgsConstructor
+public class SlicePage<T> {
+    private final List<T> items;
+    private final int page;
+    private final int size;
+    private final boolean hasNext;
+}
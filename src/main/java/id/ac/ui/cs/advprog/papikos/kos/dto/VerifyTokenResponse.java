@@ -1,7 +1,10 @@
 package id.ac.ui.cs.advprog.papikos.kos.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
+import java.time.Instant;
+
 @lombok.Data
 @Builder
 @AllArgsConstructor
@@ -21,5 +24,8 @@ public class VerifyTokenResponse {
         public String email;
         public String role;
         public String status;
+        // When a locally verified token expires; the auth service does not report it, so null there
+        @JsonIgnore
+        public Instant expiresAt;
     }
 }
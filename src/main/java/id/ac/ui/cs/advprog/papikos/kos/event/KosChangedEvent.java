@@ -0,0 +1,62 @@
+package id.ac.ui.cs.advprog.papikos.kos.event;
+
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/**
+ * Published by the Kos service whenever a Kos is created, updated or deleted.
+ * Listeners that keep derived state (such as the in-memory search index) should react after the
+ * surrounding transaction commits, so they never observe changes that were rolled back.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class KosChangedEvent {
+
+    public enum Type {
+        UPSERTED,
+        // Only the room counts changed; the searchable text is unchanged and not carried
+        OCCUPANCY_CHANGED,
+        DELETED
+    }
+
+    private final UUID kosId;
+    private final Type type;
+    private final String name;
+    private final String address;
+    private final String description;
+
+    /**
+     * Creates an event for a Kos that was created or updated.
+     *
+     * @param kos The Kos as it was saved.
+     * @return The event, carrying a snapshot of the Kos's searchable text.
+     */
+    public static KosChangedEvent upserted(Kos kos) {
+        return new KosChangedEvent(kos.getId(), Type.UPSERTED, kos.getName(), kos.getAddress(), kos.getDescription());
+    }
+
+    /**
+     * Creates an event for a Kos whose occupied room count changed.
+     *
+     * @param kosId The UUID of the Kos.
+     * @return The event.
+     */
+    public static KosChangedEvent occupancyChanged(UUID kosId) {
+        return new KosChangedEvent(kosId, Type.OCCUPANCY_CHANGED, null, null, null);
+    }
+
+    /**
+     * Creates an event for a Kos that was deleted.
+     *
+     * @param kosId The UUID of the deleted Kos.
+     * @return The event.
+     */
+    public static KosChangedEvent deleted(UUID kosId) {
+        return new KosChangedEvent(kosId, Type.DELETED, null, null, null);
+    }
+}
@@ -0,0 +1,19 @@
+package id.ac.ui.cs.advprog.papikos.kos.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Published by the Kos service with the IDs of the rental events whose processed records the transaction persisted.
+ * Listeners should react after the transaction commits, since the records are only durable then.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RentalEventsProcessedEvent {
+
+    private final List<String> rentalIds;
+}
@@ -0,0 +1,29 @@
+package id.ac.ui.cs.advprog.papikos.kos.exception;
+
+/**
+ * Exception thrown when a bearer token cannot be verified because the verification
+ * backend (the auth service or the public key set) is unreachable or unusable.
+ * Unlike {@link InvalidTokenException}, this says nothing about the token itself.
+ */
+public class AuthServiceUnavailableException extends RuntimeException {
+
+    /**
+     * Constructs a new AuthServiceUnavailableException with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public AuthServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new AuthServiceUnavailableException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause   the cause (which is saved for later retrieval by the getCause() method).
+     *                (A null value is permitted, and indicates that the cause is nonexistent or unknown.)
+     */
+    public AuthServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,28 @@
+package id.ac.ui.cs.advprog.papikos.kos.exception;
+
+/**
+ * Exception thrown when a bearer token is rejected during verification,
+ * e.g. because its signature or expiry is invalid or the auth service refused it.
+ */
+public class InvalidTokenException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidTokenException with the specified detail message.
+     *
+     * @param message the detail message explaining why the token was rejected.
+     */
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new InvalidTokenException with the specified detail message and cause.
+     *
+     * @param message the detail message.
+     * @param cause   the cause (which is saved for later retrieval by the getCause() method).
+     *                (A null value is permitted, and indicates that the cause is nonexistent or unknown.)
+     */
+    public InvalidTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,77 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a fixed set of single-threaded executors, choosing the executor by a key: tasks with the same key
+ * run one at a time in submission order, while tasks with keys on different shards run in parallel.
+ */
+public class KeyedShardExecutor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyedShardExecutor.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final List<ExecutorService> shards;
+
+    public KeyedShardExecutor(int shardCount, String threadNamePrefix) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        List<ExecutorService> shards = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(Executors.newSingleThreadExecutor(threadFactory(threadNamePrefix + shard)));
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(Object key) {
+        return Math.floorMod(key.hashCode(), shards.size());
+    }
+
+    public void execute(Object key, Runnable task) {
+        shards.get(shardOf(key)).execute(task);
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued ones to finish.
+     */
+    @Override
+    public void close() {
+        shards.forEach(ExecutorService::shutdown);
+        try {
+            for (ExecutorService shard : shards) {
+                if (!shard.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warn("Shard did not finish its queued tasks within {} s", SHUTDOWN_TIMEOUT_SECONDS);
+                    shard.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            shards.forEach(ExecutorService::shutdownNow);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger created = new AtomicInteger();
+        return runnable -> {
+            // A shard's thread is only replaced if a task kills it, so the suffix is almost always 0
+            Thread thread = new Thread(runnable, name + "-" + created.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,14 +1,22 @@
 package id.ac.ui.cs.advprog.papikos.kos.listener;
 
 import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
 import id.ac.ui.cs.advprog.papikos.kos.dto.RentalEvent;
 import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Applies rental events one message at a time. See {@link KosRentalBatchListener} for the batched mode.
+ * Failures are retried or dead-lettered by {@link RentalEventRecoverer}.
+ */
 @Component
+@ConditionalOnProperty(name = "kos.rental.consumer.mode", havingValue = "single", matchIfMissing = true)
 public class KosEventListener {
 
     private final KosService kosService;
@@ -17,8 +25,13 @@ public class KosEventListener {
         this.kosService = kosService;
     }
 
-    @RabbitListener(queues = RabbitMQConfig.KOS_QUEUE_NAME)
+    @RabbitListener(queues = RabbitMQConfig.KOS_QUEUE_NAME, containerFactory = RabbitMQConfig.RENTAL_CONTAINER_FACTORY)
     public void handleRentalCreatedEvent(RentalEvent event) {
-        kosService.updateOccupiedRooms(UUID.fromString(event.getKosId()), 1);
+        // Goes through the batch path so a redelivered event is recognised by its rental ID and skipped
+        KosOccupancyChange change = new KosOccupancyChange(UUID.fromString(event.getKosId()), 1, event.getRentalId());
+        if (!kosService.applyOccupancyChanges(List.of(change)).isEmpty()) {
+            throw new IllegalArgumentException("Occupied rooms cannot leave 0..numRooms, or Kos "
+                    + change.getKosId() + " does not exist.");
+        }
     }
 }
\ No newline at end of file
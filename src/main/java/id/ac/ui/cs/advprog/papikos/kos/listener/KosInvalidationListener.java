@@ -0,0 +1,65 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosCache;
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosInvalidationPublisher;
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosResponseCache;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosInvalidationMessage;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import id.ac.ui.cs.advprog.papikos.kos.search.KosSearchIndex;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies Kos changes made on other replicas: evicts them from the Kos caches and refreshes the search index
+ * from the current rows.
+ */
+@Component
+@ConditionalOnProperty(name = "kos.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class KosInvalidationListener {
+
+    private final KosInvalidationPublisher kosInvalidationPublisher;
+
+    private final KosCache kosCache;
+
+    private final KosResponseCache kosResponseCache;
+
+    private final KosSearchIndex kosSearchIndex;
+
+    private final KosRepository kosRepository;
+
+    public KosInvalidationListener(KosInvalidationPublisher kosInvalidationPublisher, KosCache kosCache,
+                                   KosResponseCache kosResponseCache, KosSearchIndex kosSearchIndex,
+                                   KosRepository kosRepository) {
+        this.kosInvalidationPublisher = kosInvalidationPublisher;
+        this.kosCache = kosCache;
+        this.kosResponseCache = kosResponseCache;
+        this.kosSearchIndex = kosSearchIndex;
+        this.kosRepository = kosRepository;
+    }
+
+    @RabbitListener(queues = "#{kosInvalidationQueue.name}")
+    public void handleInvalidation(KosInvalidationMessage message) {
+        if (kosInvalidationPublisher.getNodeId().equals(message.getSourceNodeId())) {
+            return;
+        }
+        List<UUID> kosIds = message.getKosIds();
+        kosIds.forEach(kosCache::evict);
+        kosIds.forEach(kosResponseCache::evict);
+
+        Map<UUID, Kos> currentKos = kosRepository.findAllById(kosIds).stream()
+                .collect(Collectors.toMap(Kos::getId, Function.identity()));
+        for (UUID kosId : kosIds) {
+            Kos kos = currentKos.get(kosId);
+            kosSearchIndex.onKosChanged(kos != null ? KosChangedEvent.upserted(kos) : KosChangedEvent.deleted(kosId));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
+import id.ac.ui.cs.advprog.papikos.kos.dto.RentalEvent;
+import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Applies rental events in batches: the changes of a batch are summed per Kos and applied in one transaction, then
+ * the batch is acknowledged. Messages that cannot be applied, such as bookings that would overfill their Kos, are
+ * handed to the {@link RentalEventRecoverer} one by one without holding back the rest of the batch. When the batch as a
+ * whole fails, its events are applied one at a time so the failure is recovered against the event that caused it.
+ */
+@Component
+@ConditionalOnProperty(name = "kos.rental.consumer.mode", havingValue = "batch")
+public class KosRentalBatchListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(KosRentalBatchListener.class);
+
+    private final KosService kosService;
+
+    private final ObjectMapper objectMapper;
+
+    private final RentalEventRecoverer rentalEventRecoverer;
+
+    public KosRentalBatchListener(KosService kosService, ObjectMapper objectMapper,
+                                  RentalEventRecoverer rentalEventRecoverer) {
+        this.kosService = kosService;
+        this.objectMapper = objectMapper;
+        this.rentalEventRecoverer = rentalEventRecoverer;
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.KOS_QUEUE_NAME, containerFactory = RabbitMQConfig.RENTAL_BATCH_CONTAINER_FACTORY)
+    public void handleRentalCreatedEvents(List<Message> messages, Channel channel) throws IOException {
+        List<KosOccupancyChange> changes = new ArrayList<>(messages.size());
+        List<Message> applicable = new ArrayList<>(messages.size());
+        List<Message> unrecovered = new ArrayList<>();
+        long lastDeliveryTag = -1;
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            lastDeliveryTag = Math.max(lastDeliveryTag, deliveryTag);
+            // Decoded here rather than by the container, so one malformed message does not fail the whole batch
+            KosOccupancyChange change;
+            try {
+                RentalEvent event = objectMapper.readValue(message.getBody(), RentalEvent.class);
+                change = new KosOccupancyChange(UUID.fromString(event.getKosId()), 1, event.getRentalId());
+            } catch (IOException | IllegalArgumentException | NullPointerException e) {
+                logger.warn("Malformed rental event with delivery tag {}: {}", deliveryTag, e.getMessage());
+                recover(message, e, unrecovered);
+                continue;
+            }
+            changes.add(change);
+            applicable.add(message);
+        }
+
+        Set<Integer> rejected = Set.of();
+        Set<Integer> failed = Set.of();
+        if (!changes.isEmpty()) {
+            try {
+                rejected = kosService.applyOccupancyChanges(changes);
+            } catch (RuntimeException e) {
+                // Nothing was committed and the failure cannot be pinned on one event, so the events are applied one
+                // by one and only those failing on their own are retried or dead-lettered
+                logger.warn("Failed to apply a batch of {} rental events, applying them one by one", changes.size(), e);
+                rejected = new HashSet<>();
+                failed = new HashSet<>();
+                applyOneByOne(changes, applicable, rejected, failed, unrecovered);
+            }
+        }
+        for (int position : rejected) {
+            recover(applicable.get(position), new IllegalArgumentException(
+                    "Occupied rooms would leave 0..numRooms, or Kos " + changes.get(position).getKosId()
+                            + " does not exist."), unrecovered);
+        }
+        if (unrecovered.isEmpty()) {
+            // Every message is now either applied or republished by the recoverer, so one cumulative ack settles them all
+            if (lastDeliveryTag >= 0) {
+                channel.basicAck(lastDeliveryTag, true);
+            }
+        } else {
+            // The container does not settle anything in MANUAL mode, so the messages the recoverer could not
+            // republish go back to the queue and the rest are acknowledged one by one
+            for (Message message : messages) {
+                long deliveryTag = message.getMessageProperties().getDeliveryTag();
+                if (unrecovered.contains(message)) {
+                    channel.basicNack(deliveryTag, false, true);
+                } else {
+                    channel.basicAck(deliveryTag, false);
+                }
+            }
+        }
+        logger.info("Accepted {} of {} rental events", changes.size() - rejected.size() - failed.size(), messages.size());
+    }
+
+    private void applyOneByOne(List<KosOccupancyChange> changes, List<Message> applicable,
+                               Set<Integer> rejected, Set<Integer> failed, List<Message> unrecovered) {
+        for (int position = 0; position < changes.size(); position++) {
+            Message message = applicable.get(position);
+            try {
+                if (!kosService.applyOccupancyChanges(List.of(changes.get(position))).isEmpty()) {
+                    rejected.add(position);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to apply rental event with delivery tag {}",
+                        message.getMessageProperties().getDeliveryTag(), e);
+                recover(message, e, unrecovered);
+                failed.add(position);
+            }
+        }
+    }
+
+    private void recover(Message message, Throwable failure, List<Message> unrecovered) {
+        try {
+            rentalEventRecoverer.recover(message, failure);
+        } catch (RuntimeException e) {
+            // Neither applied nor republished, so it has to go back to the queue
+            logger.error("Could not recover rental event with delivery tag {}; requeueing it",
+                    message.getMessageProperties().getDeliveryTag(), e);
+            unrecovered.add(message);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
+import id.ac.ui.cs.advprog.papikos.kos.dto.RentalEvent;
+import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Applies rental events in parallel across Kos while keeping each Kos's events in order. A single consumer takes
+ * events off the queue in order and hands each one to the shard its Kos ID hashes to; every shard applies its
+ * events one at a time on its own thread, then acknowledges them. Failures are handed to the
+ * {@link RentalEventRecoverer}.
+ * <p>
+ * Ordering per Kos is best-effort once an event is retried: the recoverer parks it in a TTL retry queue and the shard
+ * moves on, so later events of the same Kos are applied before it comes back. Every rental event adds one booking and
+ * is applied at most once, so the resulting occupancy does not depend on the order; only when a Kos is nearly full
+ * can a retried event lose the last room to one that came after it.
+ */
+@Component
+@ConditionalOnProperty(name = "kos.rental.consumer.mode", havingValue = "sharded")
+public class KosRentalShardedListener implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(KosRentalShardedListener.class);
+
+    private final KosService kosService;
+
+    private final ObjectMapper objectMapper;
+
+    private final RentalEventRecoverer rentalEventRecoverer;
+
+    private final KeyedShardExecutor shardExecutor;
+
+    public KosRentalShardedListener(KosService kosService, ObjectMapper objectMapper,
+                                    RentalEventRecoverer rentalEventRecoverer,
+                                    @Value("${kos.rental.sharded.shards:4}") int shards) {
+        this.kosService = kosService;
+        this.objectMapper = objectMapper;
+        this.rentalEventRecoverer = rentalEventRecoverer;
+        this.shardExecutor = new KeyedShardExecutor(shards, "kos-rental-shard-");
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.KOS_QUEUE_NAME, containerFactory = RabbitMQConfig.RENTAL_SHARDED_CONTAINER_FACTORY)
+    public void handleRentalCreatedEvent(Message message, Channel channel) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        KosOccupancyChange change;
+        try {
+            RentalEvent event = objectMapper.readValue(message.getBody(), RentalEvent.class);
+            change = new KosOccupancyChange(UUID.fromString(event.getKosId()), 1, event.getRentalId());
+        } catch (IOException | IllegalArgumentException | NullPointerException e) {
+            logger.warn("Malformed rental event with delivery tag {}: {}", deliveryTag, e.getMessage());
+            recoverAndSettle(message, e, channel);
+            return;
+        }
+        shardExecutor.execute(change.getKosId(), () -> apply(change, message, channel));
+    }
+
+    private void apply(KosOccupancyChange change, Message message, Channel channel) {
+        try {
+            if (kosService.applyOccupancyChanges(List.of(change)).isEmpty()) {
+                settle(channel, message, true);
+                return;
+            }
+            recoverAndSettle(message, new IllegalArgumentException("Occupied rooms would leave 0..numRooms, or Kos "
+                    + change.getKosId() + " does not exist."), channel);
+        } catch (RuntimeException e) {
+            recoverAndSettle(message, e, channel);
+        }
+    }
+
+    private void recoverAndSettle(Message message, Throwable failure, Channel channel) {
+        try {
+            rentalEventRecoverer.recover(message, failure);
+        } catch (RuntimeException e) {
+            // Neither applied nor republished, so it goes back to the queue
+            logger.error("Could not recover rental event with delivery tag {}; requeueing it",
+                    message.getMessageProperties().getDeliveryTag(), e);
+            settle(channel, message, false);
+            return;
+        }
+        settle(channel, message, true);
+    }
+
+    // Shards settle their own events as they finish, so acknowledgements are per message and out of order; the
+    // channel is shared by every shard, and the client does not allow concurrent use of one channel
+    private void settle(Channel channel, Message message, boolean ack) {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        synchronized (channel) {
+            try {
+                if (ack) {
+                    channel.basicAck(deliveryTag, false);
+                } else {
+                    channel.basicNack(deliveryTag, false, true);
+                }
+            } catch (IOException | RuntimeException e) {
+                // The channel is gone, so the broker redelivers the event; its rental ID keeps it from applying twice
+                logger.warn("Could not settle rental event with delivery tag {}: {}", deliveryTag, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lets the shards finish the events already handed to them. The listener container has stopped by now, so no
+     * new events arrive.
+     */
+    @Override
+    public void destroy() {
+        shardExecutor.close();
+    }
+}
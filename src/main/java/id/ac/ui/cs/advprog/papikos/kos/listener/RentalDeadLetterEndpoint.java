@@ -0,0 +1,80 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the rental dead-letter queue: {@code GET /actuator/rentaldlq} reports its depth, and
+ * {@code POST /actuator/rentaldlq} moves up to {@code limit} events back onto the rental queue with a fresh retry
+ * budget, for example once the Kos they refer to has been created.
+ */
+@Component
+@Endpoint(id = "rentaldlq")
+public class RentalDeadLetterEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalDeadLetterEndpoint.class);
+
+    static final int DEFAULT_REPLAY_LIMIT = 1000;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final Counter replayed;
+
+    public RentalDeadLetterEndpoint(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.replayed = Counter.builder("kos.rental.events.replayed")
+                .description("Rental events moved from the dead-letter queue back to the rental queue")
+                .register(meterRegistry);
+    }
+
+    @ReadOperation
+    public Map<String, Object> deadLetters() {
+        Long depth = rabbitTemplate.execute(channel -> channel.messageCount(RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME));
+        return Map.of("queue", RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME, "messages", depth);
+    }
+
+    @WriteOperation
+    public Map<String, Object> replay(@Nullable Integer limit) {
+        int max = limit != null && limit > 0 ? limit : DEFAULT_REPLAY_LIMIT;
+        // Each event is acknowledged only after it has been republished, so a failure part way loses nothing;
+        // an event republished but not yet acknowledged comes back twice and is deduplicated by its rental ID
+        Integer count = rabbitTemplate.execute(channel -> {
+            int moved = 0;
+            GetResponse response;
+            while (moved < max && (response = channel.basicGet(RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME, false)) != null) {
+                channel.basicPublish("", RabbitMQConfig.KOS_QUEUE_NAME, withoutFailureHeaders(response.getProps()),
+                        response.getBody());
+                channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                moved++;
+            }
+            return moved;
+        });
+        int moved = count != null ? count : 0;
+        replayed.increment(moved);
+        logger.info("Replayed {} rental events from {}", moved, RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME);
+        return Map.of("replayed", moved);
+    }
+
+    private static AMQP.BasicProperties withoutFailureHeaders(AMQP.BasicProperties properties) {
+        Map<String, Object> headers = properties.getHeaders() != null
+                ? new HashMap<>(properties.getHeaders()) : new HashMap<>();
+        headers.remove(RentalEventRecoverer.RETRY_COUNT_HEADER);
+        headers.remove(RentalEventRecoverer.EXCEPTION_CLASS_HEADER);
+        headers.remove(RentalEventRecoverer.EXCEPTION_MESSAGE_HEADER);
+        return properties.builder().headers(headers).build();
+    }
+}
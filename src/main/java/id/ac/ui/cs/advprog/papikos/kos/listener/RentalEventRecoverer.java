@@ -0,0 +1,94 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import id.ac.ui.cs.advprog.papikos.kos.config.RentalRetryPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes over rental events that failed to apply. Retryable failures are republished to the retry queue for their
+ * next attempt, which returns them to the rental queue once its delay has passed; fatal failures, and events out of
+ * retries, are republished to the dead-letter queue with the failure in their headers. Either way the caller then
+ * acknowledges the original, so a failing event never blocks the queue.
+ */
+@Component
+public class RentalEventRecoverer implements MessageRecoverer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalEventRecoverer.class);
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String EXCEPTION_CLASS_HEADER = "x-exception-class";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final RentalRetryPolicy retryPolicy;
+
+    private final Counter retried;
+
+    private final Counter deadLetteredFatal;
+
+    private final Counter deadLetteredExhausted;
+
+    public RentalEventRecoverer(RabbitTemplate rabbitTemplate, RentalRetryPolicy retryPolicy, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryPolicy = retryPolicy;
+        this.retried = Counter.builder("kos.rental.events.retried")
+                .description("Rental events scheduled for a delayed retry")
+                .register(meterRegistry);
+        this.deadLetteredFatal = deadLetteredCounter(meterRegistry, "fatal");
+        this.deadLetteredExhausted = deadLetteredCounter(meterRegistry, "exhausted");
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        Throwable failure = cause instanceof ListenerExecutionFailedException && cause.getCause() != null
+                ? cause.getCause() : cause;
+        int retries = retryCount(message);
+        boolean fatal = retryPolicy.isFatal(failure);
+        if (!fatal && retries < retryPolicy.getMaxRetries()) {
+            int retry = retries + 1;
+            rabbitTemplate.send("", retryPolicy.getRetryQueueName(retry), copyOf(message)
+                    .setHeader(RETRY_COUNT_HEADER, retry)
+                    .build());
+            retried.increment();
+            logger.warn("Retrying rental event in {} (retry {} of {}): {}",
+                    retryPolicy.getDelays().get(retries), retry, retryPolicy.getMaxRetries(), failure.toString());
+            return;
+        }
+        rabbitTemplate.send(RabbitMQConfig.KOS_DEAD_LETTER_EXCHANGE_NAME, RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME,
+                copyOf(message)
+                        .setHeader(EXCEPTION_CLASS_HEADER, failure.getClass().getName())
+                        .setHeader(EXCEPTION_MESSAGE_HEADER, String.valueOf(failure.getMessage()))
+                        .build());
+        (fatal ? deadLetteredFatal : deadLetteredExhausted).increment();
+        logger.error("Dead-lettering rental event after {} retries ({}): {}",
+                retries, fatal ? "fatal" : "out of retries", failure.toString());
+    }
+
+    private static int retryCount(Message message) {
+        Object retries = message.getMessageProperties().getHeaders().get(RETRY_COUNT_HEADER);
+        return retries instanceof Number number ? number.intValue() : 0;
+    }
+
+    // Received messages carry no delivery mode of their own, so the copy is made persistent explicitly
+    private static MessageBuilder copyOf(Message message) {
+        return MessageBuilder.fromClonedMessage(message).setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+    }
+
+    private static Counter deadLetteredCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("kos.rental.events.dead.lettered")
+                .description("Rental events moved to the dead-letter queue")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
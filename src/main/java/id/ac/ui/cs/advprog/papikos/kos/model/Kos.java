@@ -10,7 +10,9 @@ import java.util.Objects;
 import java.util.UUID;
 
 @Entity(name = "Kos")
-@Table(name = "kos")
+@Table(name = "kos", indexes = {
+        @Index(name = "idx_kos_created_at_id", columnList = "created_at, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -0,0 +1,62 @@
+package id.ac.ui.cs.advprog.papikos.kos.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Records that the occupancy change of a rental event has been applied.
+ */
+@Entity(name = "ProcessedRentalEvent")
+@Table(name = "processed_rental_events", indexes = {
+        @Index(name = "idx_processed_rental_events_processed_at", columnList = "processed_at")
+})
+@NoArgsConstructor
+@ToString
+public class ProcessedRentalEvent implements Persistable<String> {
+
+    @Id
+    @Getter
+    @Column(name = "rental_id", nullable = false)
+    private String rentalId;
+
+    @Getter
+    @Column(columnDefinition = "uuid", name = "kos_id", nullable = false)
+    private UUID kosId;
+
+    @Getter
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    // New records are always inserted, never merged, so a second record of the same event fails on the primary key
+    // instead of silently overwriting the first
+    @Transient
+    private boolean persisted;
+
+    public ProcessedRentalEvent(String rentalId, UUID kosId, LocalDateTime processedAt) {
+        this.rentalId = rentalId;
+        this.kosId = kosId;
+        this.processedAt = processedAt;
+    }
+
+    @Override
+    public String getId() {
+        return rentalId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
@@ -0,0 +1,31 @@
+package id.ac.ui.cs.advprog.papikos.kos.repository;
+
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosCursor;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosField;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Queries that select only the requested Kos fields. Each row is a map from field name to value, in field order,
+ * so it serializes to JSON with exactly the requested fields.
+ */
+public interface KosFieldRepository {
+
+    /**
+     * Finds one page of Kos ordered by creation time and ID, using the same keyset as the full listing.
+     *
+     * @param fields The fields to select.
+     * @param after  The key of the last row of the previous page, or {@code null} for the first page.
+     * @param limit  The maximum number of rows.
+     * @return The selected fields of each Kos on the page.
+     */
+    List<Map<String, Object>> findFieldPage(Set<KosField> fields, KosCursor after, int limit);
+
+    List<Map<String, Object>> findFieldsByOwnerUserId(Set<KosField> fields, UUID ownerUserId);
+
+    Optional<Map<String, Object>> findFieldsById(Set<KosField> fields, UUID id);
+}
@@ -0,0 +1,91 @@
+package id.ac.ui.cs.advprog.papikos.kos.repository;
+
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosCursor;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosField;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds a criteria tuple query per request whose select list holds only the requested columns. Tuples are never
+ * managed, so the rows skip the persistence context as well as the columns nobody asked for.
+ */
+class KosFieldRepositoryImpl implements KosFieldRepository {
+
+    private final EntityManager entityManager;
+
+    KosFieldRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldPage(Set<KosField> fields, KosCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Kos> kos = query.from(Kos.class);
+        Path<LocalDateTime> createdAt = kos.get("createdAt");
+        Path<UUID> id = kos.get("id");
+        query.multiselect(selections(cb, kos, fields));
+        if (after != null) {
+            query.where(cb.or(
+                    cb.greaterThan(createdAt, after.getCreatedAt()),
+                    cb.and(cb.equal(createdAt, after.getCreatedAt()), cb.greaterThan(id, after.getId()))));
+        }
+        query.orderBy(cb.asc(createdAt), cb.asc(id));
+        return toRows(entityManager.createQuery(query).setMaxResults(limit).getResultList(), fields);
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByOwnerUserId(Set<KosField> fields, UUID ownerUserId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Kos> kos = query.from(Kos.class);
+        query.multiselect(selections(cb, kos, fields))
+                .where(cb.equal(kos.get("ownerUserId"), ownerUserId))
+                .orderBy(cb.asc(kos.get("createdAt")), cb.asc(kos.get("id")));
+        return toRows(entityManager.createQuery(query).getResultList(), fields);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Set<KosField> fields, UUID id) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Kos> kos = query.from(Kos.class);
+        query.multiselect(selections(cb, kos, fields))
+                .where(cb.equal(kos.get("id"), id));
+        return toRows(entityManager.createQuery(query).getResultList(), fields).stream().findFirst();
+    }
+
+    private static List<Selection<?>> selections(CriteriaBuilder cb, Root<Kos> kos, Set<KosField> fields) {
+        return fields.stream()
+                .<Selection<?>>map(field -> field == KosField.FREE_ROOMS
+                        ? cb.diff(kos.<Integer>get("numRooms"), kos.<Integer>get("occupiedRooms")).alias(field.getJsonName())
+                        : kos.get(field.getAttribute()).alias(field.getJsonName()))
+                .toList();
+    }
+
+    private static List<Map<String, Object>> toRows(List<Tuple> tuples, Set<KosField> fields) {
+        return tuples.stream()
+                .map(tuple -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (KosField field : fields) {
+                        row.put(field.getJsonName(), tuple.get(field.getJsonName()));
+                    }
+                    return row;
+                })
+                .toList();
+    }
+}
@@ -1,14 +1,103 @@
 package id.ac.ui.cs.advprog.papikos.kos.repository;
 
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosListVersion;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosSummary;
 import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface KosRepository extends JpaRepository<Kos, UUID> {
-    List<Kos> findKosByOwnerUserId(UUID ownerUserId);
-    List<Kos> findKosByNameContainingIgnoreCaseOrAddressContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String name, String address, String description);
+public interface KosRepository extends JpaRepository<Kos, UUID>, KosFieldRepository {
+
+    // Infix matching on lower(name) and lower(address), served by the pg_trgm GIN indexes (see the V1 migration).
+    // <% is true when the keyword is similar enough to some part of the text, per pg_trgm.word_similarity_threshold
+    String TRIGRAM_SEARCH_SQL = "SELECT k.id FROM kos k " +
+            "WHERE :keyword <% lower(k.name) OR :keyword <% lower(k.address) " +
+            "ORDER BY greatest(word_similarity(:keyword, lower(k.name)), word_similarity(:keyword, lower(k.address))) DESC, k.id " +
+            "LIMIT :limit OFFSET :offset";
+
+    // Selects KosSummary rows straight from the table, skipping the entity lifecycle and the full TEXT columns
+    String SUMMARY_SELECT = "SELECT new id.ac.ui.cs.advprog.papikos.kos.dto.KosSummary(" +
+            "k.id, k.name, SUBSTRING(k.address, 1, " + KosSummary.SHORT_ADDRESS_LENGTH + "), k.monthlyRentPrice, " +
+            "k.numRooms - k.occupiedRooms, k.isListed, k.createdAt) FROM Kos k ";
+
+    @Query(SUMMARY_SELECT + "WHERE k.ownerUserId = :ownerUserId ORDER BY k.createdAt ASC, k.id ASC")
+    List<KosSummary> findSummariesByOwnerUserId(@Param("ownerUserId") UUID ownerUserId);
+
+    // Unordered; callers put the rows back into the order of the IDs they asked for
+    @Query(SUMMARY_SELECT + "WHERE k.id IN :ids")
+    List<KosSummary> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Ranked full-text search over the generated, GIN indexed search_vector column (see the V1 migration).
+    // Only the ranked IDs are returned; the rows are then read as summaries
+    @Query(value = "SELECT k.id FROM kos k, websearch_to_tsquery('simple', :query) q " +
+            "WHERE k.search_vector @@ q " +
+            "ORDER BY ts_rank_cd(k.search_vector, q) DESC, k.id " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<UUID> searchIdsByFullText(@Param("query") String query, @Param("limit") int limit, @Param("offset") int offset);
+
+    // Conditional GET validators, read without loading the entities
+    @Query("SELECT k.updatedAt FROM Kos k WHERE k.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") UUID id);
+
+    @Query("SELECT new id.ac.ui.cs.advprog.papikos.kos.dto.KosListVersion(COUNT(k), MAX(k.updatedAt)) " +
+            "FROM Kos k WHERE k.ownerUserId = :ownerUserId")
+    KosListVersion findListVersionByOwnerUserId(@Param("ownerUserId") UUID ownerUserId);
+
+    // Served by the listing indexes created by the migrations; the sort comes from the Pageable
+    @Query(SUMMARY_SELECT + "WHERE k.isListed = true " +
+            "AND k.monthlyRentPrice BETWEEN :minPrice AND :maxPrice " +
+            "AND k.numRooms - k.occupiedRooms >= :minFreeRooms")
+    Slice<KosSummary> filterListedSummaries(@Param("minPrice") BigDecimal minPrice,
+                                            @Param("maxPrice") BigDecimal maxPrice,
+                                            @Param("minFreeRooms") int minFreeRooms,
+                                            Pageable pageable);
+
+    @Query(value = TRIGRAM_SEARCH_SQL, nativeQuery = true)
+    List<UUID> searchIdsBySimilarity(@Param("keyword") String keyword, @Param("limit") int limit, @Param("offset") int offset);
+
+    // is_local = true scopes the setting to the current transaction, so pooled connections keep the server default
+    @Query(value = "SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)", nativeQuery = true)
+    String setWordSimilarityThreshold(@Param("threshold") String threshold);
+
+    // Keyset pagination over the (created_at, id) index: each page is an index range scan, independent of its depth
+    @Query(SUMMARY_SELECT + "ORDER BY k.createdAt ASC, k.id ASC")
+    List<KosSummary> findFirstSummaryPage(Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE k.createdAt > :createdAt OR (k.createdAt = :createdAt AND k.id > :id) " +
+            "ORDER BY k.createdAt ASC, k.id ASC")
+    List<KosSummary> findSummaryPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Limit limit);
+
+    // A single conditional UPDATE: concurrent changes to the same Kos queue on its row lock and each sees the
+    // previous one's result, so none is lost and the count never leaves 0..numRooms. Returns 0 when the change
+    // would do so or the Kos does not exist. Bulk updates skip @PreUpdate, hence the explicit updatedAt
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Kos k SET k.occupiedRooms = k.occupiedRooms + :delta, k.updatedAt = :updatedAt " +
+            "WHERE k.id = :id AND k.occupiedRooms + :delta BETWEEN 0 AND k.numRooms")
+    int addOccupiedRooms(@Param("id") UUID id, @Param("delta") int delta, @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Must be consumed inside a transaction: PostgreSQL only honours the fetch size with auto-commit off
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    Stream<Kos> streamAllBy();
 }
@@ -0,0 +1,27 @@
+package id.ac.ui.cs.advprog.papikos.kos.repository;
+
+import id.ac.ui.cs.advprog.papikos.kos.model.ProcessedRentalEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProcessedRentalEventRepository extends JpaRepository<ProcessedRentalEvent, String> {
+
+    @Query("SELECT e.rentalId FROM ProcessedRentalEvent e WHERE e.rentalId IN :rentalIds")
+    List<String> findProcessedRentalIds(@Param("rentalIds") Collection<String> rentalIds);
+
+    // At most limit rows per call and transaction, so a large backlog never holds its locks for long
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM processed_rental_events WHERE rental_id IN (" +
+            "SELECT rental_id FROM processed_rental_events WHERE processed_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,519 @@
+package id.ac.ui.cs.advprog.papikos.kos.search;
+
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Per-node, in-memory inverted index over Kos name, address and description.
+ * Each Kos gets a dense int document id; postings are sorted int arrays with a parallel byte array
+ * recording which fields contain the term, so AND queries are merge intersections and ranking needs no
+ * extra lookups. The index is built in the background once the application is ready and then kept current
+ * from {@link KosChangedEvent}s after each commit. Until the build finishes {@link #isReady()} is false and
+ * callers are expected to fall back to the database.
+ */
+@Component
+public class KosSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(KosSearchIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Field bits double as ranking weights: a hit in the name outranks address, which outranks description
+    static final byte NAME = 4;
+    static final byte ADDRESS = 2;
+    static final byte DESCRIPTION = 1;
+
+    private static final Postings[] NO_POSTINGS = new Postings[0];
+
+    private final KosRepository kosRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postingsByTerm = new HashMap<>();
+
+    private final Map<UUID, Integer> docIdsByKosId = new HashMap<>();
+
+    private UUID[] kosIdsByDocId = new UUID[1024];
+
+    // Forward index, used to remove a document's postings when it is updated or deleted
+    private Postings[][] postingsByDocId = new Postings[1024][];
+
+    private int[] freeDocIds = new int[64];
+
+    private int freeDocIdCount;
+
+    private int nextDocId;
+
+    private boolean building;
+
+    // Kos changed while the initial build is streaming rows; the event is newer than any row the build reads
+    private final Set<UUID> changedDuringBuild = new HashSet<>();
+
+    private volatile boolean ready;
+
+    private final Timer queryTimer;
+
+    private final Timer buildTimer;
+
+    public KosSearchIndex(KosRepository kosRepository,
+                          EntityManager entityManager,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${kos.search.index.enabled:true}") boolean enabled,
+                          MeterRegistry meterRegistry) {
+        this.kosRepository = kosRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+
+        this.queryTimer = Timer.builder("kos.search.index.query")
+                .description("Latency of keyword searches answered from the in-memory index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.buildTimer = Timer.builder("kos.search.index.build")
+                .description("Time taken to build the in-memory search index from the database")
+                .register(meterRegistry);
+        Gauge.builder("kos.search.index.ready", this, index -> index.isReady() ? 1 : 0)
+                .description("Whether searches are answered from the in-memory index")
+                .register(meterRegistry);
+        Gauge.builder("kos.search.index.documents", this, KosSearchIndex::documentCount)
+                .description("Kos held in the in-memory search index")
+                .register(meterRegistry);
+        Gauge.builder("kos.search.index.terms", this, KosSearchIndex::termCount)
+                .description("Distinct terms held in the in-memory search index")
+                .register(meterRegistry);
+        Gauge.builder("kos.search.index.memory", this, KosSearchIndex::estimatedMemoryBytes)
+                .description("Estimated heap used by the in-memory search index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the initial build has completed and searches can be answered from memory.
+     *
+     * @return {@code true} once the index is current.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Starts building the index in the background once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            logger.info("In-memory Kos search index is disabled; searches will use the database");
+            return;
+        }
+        Thread builder = new Thread(this::build, "kos-search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Builds the index from every Kos in the database. Searches keep using the database until this completes.
+     */
+    void build() {
+        lock.writeLock().lock();
+        try {
+            building = true;
+            changedDuringBuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Kos> rows = kosRepository.streamAllBy()) {
+                    rows.forEach(kos -> {
+                        indexFromBuild(kos.getId(), kos.getName(), kos.getAddress(), kos.getDescription());
+                        entityManager.detach(kos);
+                    });
+                }
+            });
+            ready = true;
+            logger.info("Built in-memory Kos search index with {} documents and {} terms in {} ms",
+                    documentCount(), termCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("Failed to build in-memory Kos search index; searches will keep using the database", e);
+        } finally {
+            buildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            lock.writeLock().lock();
+            try {
+                building = false;
+                changedDuringBuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies a committed Kos change to the index.
+     *
+     * @param event The change published by the Kos service.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onKosChanged(KosChangedEvent event) {
+        if (event.getType() == KosChangedEvent.Type.OCCUPANCY_CHANGED) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                changedDuringBuild.add(event.getKosId());
+            }
+            if (event.getType() == KosChangedEvent.Type.DELETED) {
+                removeLocked(event.getKosId());
+            } else {
+                upsertLocked(event.getKosId(), event.getName(), event.getAddress(), event.getDescription());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds Kos matching a keyword query, best match first.
+     * Terms separated by whitespace must all match (AND); {@code OR} separates alternative groups,
+     * so {@code "kos murah OR asrama"} matches documents containing both "kos" and "murah", or "asrama".
+     *
+     * @param query  The keyword query.
+     * @param limit  The maximum number of results.
+     * @param offset The number of ranked results to skip.
+     * @return The UUIDs of the matching Kos, best match first.
+     */
+    public List<UUID> search(String query, int limit, int offset) {
+        return queryTimer.record(() -> {
+            List<List<String>> groups = parse(query);
+            lock.readLock().lock();
+            try {
+                return searchLocked(groups, limit, offset);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private List<UUID> searchLocked(List<List<String>> groups, int limit, int offset) {
+        int[] docs;
+        int[] scores;
+        if (groups.size() == 1) {
+            Match match = matchAll(groups.get(0));
+            docs = match.docs;
+            scores = match.scores;
+        } else {
+            // OR: a document's score is its best score over the groups it matches
+            Map<Integer, Integer> best = new HashMap<>();
+            for (List<String> group : groups) {
+                Match match = matchAll(group);
+                for (int i = 0; i < match.docs.length; i++) {
+                    best.merge(match.docs[i], match.scores[i], Math::max);
+                }
+            }
+            docs = new int[best.size()];
+            scores = new int[best.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : best.entrySet()) {
+                docs[i] = entry.getKey();
+                scores[i++] = entry.getValue();
+            }
+        }
+
+        Integer[] order = new Integer[docs.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int[] rankedDocs = docs;
+        int[] rankedScores = scores;
+        Arrays.sort(order, (a, b) -> rankedScores[a] != rankedScores[b]
+                ? Integer.compare(rankedScores[b], rankedScores[a])
+                : Integer.compare(rankedDocs[a], rankedDocs[b]));
+
+        int from = Math.min(offset, order.length);
+        int to = (int) Math.min((long) from + limit, order.length);
+        List<UUID> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(kosIdsByDocId[rankedDocs[order[i]]]);
+        }
+        return result;
+    }
+
+    /**
+     * Intersects the postings of every term, starting from the rarest.
+     */
+    private Match matchAll(List<String> terms) {
+        if (terms.isEmpty()) {
+            return Match.EMPTY;
+        }
+        Postings[] termPostings = new Postings[terms.size()];
+        for (int i = 0; i < termPostings.length; i++) {
+            Postings postings = postingsByTerm.get(terms.get(i));
+            if (postings == null) {
+                return Match.EMPTY;
+            }
+            termPostings[i] = postings;
+        }
+        Arrays.sort(termPostings, Comparator.comparingInt(postings -> postings.size));
+
+        int[] docs = Arrays.copyOf(termPostings[0].docs, termPostings[0].size);
+        int[] scores = new int[docs.length];
+        for (int i = 0; i < docs.length; i++) {
+            scores[i] = termPostings[0].fields[i];
+        }
+        int count = docs.length;
+        for (int t = 1; t < termPostings.length && count > 0; t++) {
+            Postings postings = termPostings[t];
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < count && j < postings.size; i++) {
+                while (j < postings.size && postings.docs[j] < docs[i]) {
+                    j++;
+                }
+                if (j < postings.size && postings.docs[j] == docs[i]) {
+                    docs[kept] = docs[i];
+                    scores[kept++] = scores[i] + postings.fields[j];
+                }
+            }
+            count = kept;
+        }
+        return new Match(Arrays.copyOf(docs, count), Arrays.copyOf(scores, count));
+    }
+
+    private void indexFromBuild(UUID kosId, String name, String address, String description) {
+        lock.writeLock().lock();
+        try {
+            if (!changedDuringBuild.contains(kosId)) {
+                upsertLocked(kosId, name, address, description);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsertLocked(UUID kosId, String name, String address, String description) {
+        Map<String, Byte> fieldsByTerm = new HashMap<>();
+        addTerms(fieldsByTerm, name, NAME);
+        addTerms(fieldsByTerm, address, ADDRESS);
+        addTerms(fieldsByTerm, description, DESCRIPTION);
+
+        Integer existing = docIdsByKosId.get(kosId);
+        int docId;
+        if (existing != null) {
+            docId = existing;
+            removePostingsLocked(docId);
+        } else {
+            docId = allocateDocId();
+            docIdsByKosId.put(kosId, docId);
+            kosIdsByDocId[docId] = kosId;
+        }
+
+        Postings[] docPostings = new Postings[fieldsByTerm.size()];
+        int i = 0;
+        for (Map.Entry<String, Byte> entry : fieldsByTerm.entrySet()) {
+            Postings postings = postingsByTerm.computeIfAbsent(entry.getKey(), Postings::new);
+            postings.add(docId, entry.getValue());
+            docPostings[i++] = postings;
+        }
+        postingsByDocId[docId] = docPostings;
+    }
+
+    private void removeLocked(UUID kosId) {
+        Integer docId = docIdsByKosId.remove(kosId);
+        if (docId == null) {
+            return;
+        }
+        removePostingsLocked(docId);
+        postingsByDocId[docId] = null;
+        kosIdsByDocId[docId] = null;
+        if (freeDocIdCount == freeDocIds.length) {
+            freeDocIds = Arrays.copyOf(freeDocIds, freeDocIds.length * 2);
+        }
+        freeDocIds[freeDocIdCount++] = docId;
+    }
+
+    private void removePostingsLocked(int docId) {
+        for (Postings postings : postingsByDocId[docId] == null ? NO_POSTINGS : postingsByDocId[docId]) {
+            postings.remove(docId);
+            if (postings.size == 0) {
+                postingsByTerm.remove(postings.term);
+            }
+        }
+    }
+
+    private int allocateDocId() {
+        if (freeDocIdCount > 0) {
+            return freeDocIds[--freeDocIdCount];
+        }
+        if (nextDocId == kosIdsByDocId.length) {
+            kosIdsByDocId = Arrays.copyOf(kosIdsByDocId, kosIdsByDocId.length * 2);
+            postingsByDocId = Arrays.copyOf(postingsByDocId, postingsByDocId.length * 2);
+        }
+        return nextDocId++;
+    }
+
+    private static void addTerms(Map<String, Byte> fieldsByTerm, String text, byte field) {
+        for (String term : tokenize(text)) {
+            fieldsByTerm.merge(term, field, (a, b) -> (byte) (a | b));
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    static List<List<String>> parse(String query) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        for (String word : WHITESPACE.split(query.trim())) {
+            if (word.equalsIgnoreCase("or")) {
+                if (!current.isEmpty()) {
+                    groups.add(current);
+                    current = new ArrayList<>();
+                }
+            } else {
+                current.addAll(tokenize(word));
+            }
+        }
+        if (!current.isEmpty()) {
+            groups.add(current);
+        }
+        if (groups.isEmpty()) {
+            groups.add(List.of());
+        }
+        return groups;
+    }
+
+    int documentCount() {
+        lock.readLock().lock();
+        try {
+            return docIdsByKosId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return postingsByTerm.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rough heap estimate: postings arrays, term strings and map entries, plus the per-document tables.
+     */
+    long estimatedMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings postings : postingsByTerm.values()) {
+                // int + byte per slot, two array headers, the Postings object, the term String and its map entry
+                bytes += postings.docs.length * 5L + 32 + 24 + 40 + postings.term.length() + 48;
+            }
+            for (int docId = 0; docId < nextDocId; docId++) {
+                if (postingsByDocId[docId] != null) {
+                    bytes += 16 + postingsByDocId[docId].length * 4L;
+                }
+            }
+            // UUID and Integer map entries, plus the dense tables
+            bytes += docIdsByKosId.size() * (48L + 32 + 16);
+            bytes += kosIdsByDocId.length * 4L + postingsByDocId.length * 4L + freeDocIds.length * 4L;
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Match(int[] docs, int[] scores) {
+        private static final Match EMPTY = new Match(new int[0], new int[0]);
+    }
+
+    /**
+     * Sorted document ids containing one term, with the fields the term occurs in.
+     */
+    private static final class Postings {
+
+        private final String term;
+
+        private int[] docs = new int[4];
+
+        private byte[] fields = new byte[4];
+
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(int docId, byte field) {
+            int index = Arrays.binarySearch(docs, 0, size, docId);
+            if (index >= 0) {
+                fields[index] |= field;
+                return;
+            }
+            index = -index - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(docs, index, docs, index + 1, size - index);
+            System.arraycopy(fields, index, fields, index + 1, size - index);
+            docs[index] = docId;
+            fields[index] = field;
+            size++;
+        }
+
+        private void remove(int docId) {
+            int index = Arrays.binarySearch(docs, 0, size, docId);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(docs, index + 1, docs, index, size - index - 1);
+            System.arraycopy(fields, index + 1, fields, index, size - index - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import id.ac.ui.cs.advprog.papikos.kos.exception.AuthServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * HTTP client for the auth service.
+ * Calls go through a pooled keep-alive connection manager with strict connect/read timeouts,
+ * a semaphore bulkhead capping concurrent calls and a circuit breaker that fails fast while
+ * the auth service is unhealthy. Pool, bulkhead and breaker state are exported as metrics.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.verification.mode", havingValue = "remote", matchIfMissing = true)
+public class AuthServiceClient implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthServiceClient.class);
+
+    static final String INSTANCE_NAME = "authService";
+
+    private final String authServiceUrl;
+
+    private final CloseableHttpClient httpClient;
+
+    private final RestTemplate restTemplate;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final Bulkhead bulkhead;
+
+    public AuthServiceClient(@Value("${auth.service.url}") String authServiceUrl,
+                             @Value("${auth.client.max-connections:50}") int maxConnections,
+                             @Value("${auth.client.connect-timeout:500ms}") Duration connectTimeout,
+                             @Value("${auth.client.read-timeout:2s}") Duration readTimeout,
+                             @Value("${auth.client.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+                             @Value("${auth.client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                             @Value("${auth.client.circuit-breaker.wait-duration-in-open-state:10s}") Duration waitDurationInOpenState,
+                             MeterRegistry meterRegistry) {
+        this.authServiceUrl = authServiceUrl;
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .build())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // Waiting for a pooled connection counts against the same budget as connecting
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(20)
+                .minimumNumberOfCalls(10)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                // A rejected token is a healthy answer from the auth service
+                .ignoreExceptions(HttpClientErrorException.class)
+                .build());
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(INSTANCE_NAME);
+
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        this.bulkhead = bulkheadRegistry.bulkhead(INSTANCE_NAME);
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, INSTANCE_NAME).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+    }
+
+    /**
+     * Posts the token to the auth service's verify endpoint.
+     *
+     * @param token The raw bearer token.
+     * @return The raw verification response.
+     * @throws HttpClientErrorException        if the auth service rejected the token.
+     * @throws org.springframework.web.client.RestClientException if the call failed or timed out.
+     * @throws AuthServiceUnavailableException if the circuit breaker is open or the bulkhead is full.
+     */
+    public ResponseEntity<String> verify(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        logger.debug("Verifying token with auth server at URL: {}", authServiceUrl);
+        try {
+            return Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker,
+                    () -> restTemplate.exchange(authServiceUrl + "/api/v1/verify", HttpMethod.POST, entity, String.class)
+            )).get();
+        } catch (CallNotPermittedException e) {
+            throw new AuthServiceUnavailableException("Authentication service is unavailable.", e);
+        } catch (BulkheadFullException e) {
+            throw new AuthServiceUnavailableException("Too many concurrent token verifications.", e);
+        }
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,112 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the public key set used for local JWT verification.
+ * The set is loaded from {@code auth.jwt.jwk-set-uri}, which may be an http(s) URL or a file path,
+ * and reloaded in the background. A token signed with a key the set does not hold triggers an early reload, at most
+ * once per {@code auth.jwt.jwk-set-refresh-cooldown}, so rotated keys are picked up without waiting for the next
+ * scheduled reload. A failed reload keeps serving the last good key set.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.verification.mode", havingValue = "local")
+public class JwkSetProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwkSetProvider.class);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+    private static final int READ_TIMEOUT_MILLIS = 2_000;
+    private static final int SIZE_LIMIT_BYTES = 50 * 1024;
+
+    private final String jwkSetUri;
+
+    private final AtomicReference<JWKSet> jwkSet = new AtomicReference<>(new JWKSet());
+
+    private final long refreshCooldownNanos;
+
+    private final LongSupplier nanoClock;
+
+    // Unset until the first reload for an unknown key, which therefore always goes ahead
+    private long lastUnknownKeyRefresh;
+
+    private boolean unknownKeyRefreshed;
+
+    @Autowired
+    public JwkSetProvider(@Value("${auth.jwt.jwk-set-uri}") String jwkSetUri,
+                          @Value("${auth.jwt.jwk-set-refresh-cooldown:PT30S}") Duration refreshCooldown) {
+        this(jwkSetUri, refreshCooldown, System::nanoTime);
+    }
+
+    JwkSetProvider(String jwkSetUri, Duration refreshCooldown, LongSupplier nanoClock) {
+        this.jwkSetUri = jwkSetUri;
+        this.refreshCooldownNanos = refreshCooldown.toNanos();
+        this.nanoClock = nanoClock;
+        refresh();
+    }
+
+    /**
+     * Returns the most recently loaded public key set.
+     *
+     * @return The current key set; empty if it has never been loaded successfully.
+     */
+    public JWKSet getJwkSet() {
+        return jwkSet.get();
+    }
+
+    /**
+     * Reloads the key set because a token names a key it does not hold, unless such a reload happened within the
+     * cooldown. Tokens with made-up key IDs therefore cost at most one reload per cooldown.
+     *
+     * @return {@code true} if the key set was reloaded and is worth searching again.
+     */
+    public synchronized boolean refreshForUnknownKey() {
+        long now = nanoClock.getAsLong();
+        if (unknownKeyRefreshed && now - lastUnknownKeyRefresh < refreshCooldownNanos) {
+            return false;
+        }
+        unknownKeyRefreshed = true;
+        lastUnknownKeyRefresh = now;
+        refresh();
+        return true;
+    }
+
+    /**
+     * Reloads the key set from its configured location.
+     */
+    @Scheduled(fixedDelayString = "${auth.jwt.jwk-set-refresh-interval:PT5M}",
+            initialDelayString = "${auth.jwt.jwk-set-refresh-interval:PT5M}")
+    public void refresh() {
+        try {
+            JWKSet loaded = load().toPublicJWKSet();
+            jwkSet.set(loaded);
+            logger.info("Loaded {} public key(s) from {}", loaded.getKeys().size(), jwkSetUri);
+        } catch (IOException | ParseException e) {
+            logger.error("Failed to load JWK set from {}, keeping {} previously loaded key(s): {}",
+                    jwkSetUri, jwkSet.get().getKeys().size(), e.getMessage());
+        }
+    }
+
+    private JWKSet load() throws IOException, ParseException {
+        if (jwkSetUri.startsWith("http://") || jwkSetUri.startsWith("https://")) {
+            return JWKSet.load(URI.create(jwkSetUri).toURL(), CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS, SIZE_LIMIT_BYTES);
+        }
+        String path = jwkSetUri.startsWith("file:") ? jwkSetUri.substring("file:".length()) : jwkSetUri;
+        return JWKSet.load(new File(path));
+    }
+}
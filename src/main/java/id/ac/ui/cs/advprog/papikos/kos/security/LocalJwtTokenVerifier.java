@@ -0,0 +1,94 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import id.ac.ui.cs.advprog.papikos.kos.exception.AuthServiceUnavailableException;
+import id.ac.ui.cs.advprog.papikos.kos.exception.InvalidTokenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Verifies bearer tokens in-process as signed JWTs.
+ * Signature, expiry and (optionally) issuer are checked against the public keys held by {@link JwkSetProvider},
+ * so no network round trip is made per request.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.verification.mode", havingValue = "local")
+public class LocalJwtTokenVerifier implements TokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalJwtTokenVerifier.class);
+
+    private final DefaultJWTProcessor<SecurityContext> jwtProcessor;
+
+    private final String userIdClaim;
+
+    private final String roleClaim;
+
+    public LocalJwtTokenVerifier(JwkSetProvider jwkSetProvider,
+                                 @Value("${auth.jwt.algorithm:RS256}") String algorithm,
+                                 @Value("${auth.jwt.issuer:}") String issuer,
+                                 @Value("${auth.jwt.user-id-claim:sub}") String userIdClaim,
+                                 @Value("${auth.jwt.role-claim:role}") String roleClaim) {
+        this.userIdClaim = userIdClaim;
+        this.roleClaim = roleClaim;
+
+        JWTClaimsSet.Builder exactMatchClaims = new JWTClaimsSet.Builder();
+        if (StringUtils.hasText(issuer)) {
+            exactMatchClaims.issuer(issuer);
+        }
+
+        this.jwtProcessor = new DefaultJWTProcessor<>();
+        this.jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(
+                JWSAlgorithm.parse(algorithm),
+                (jwkSelector, context) -> {
+                    List<JWK> keys = jwkSelector.select(jwkSetProvider.getJwkSet());
+                    // No key matches, e.g. because the auth service has rotated its keys since the last reload
+                    if (keys.isEmpty() && jwkSetProvider.refreshForUnknownKey()) {
+                        keys = jwkSelector.select(jwkSetProvider.getJwkSet());
+                    }
+                    return keys;
+                }
+        ));
+        this.jwtProcessor.setJWTClaimsSetVerifier(new DefaultJWTClaimsVerifier<>(
+                exactMatchClaims.build(),
+                Set.of("exp", userIdClaim, roleClaim)
+        ));
+    }
+
+    @Override
+    public VerifyTokenResponse.Data verify(String token) {
+        try {
+            JWTClaimsSet claims = jwtProcessor.process(token, null);
+            return VerifyTokenResponse.Data.builder()
+                    .userId(claims.getStringClaim(userIdClaim))
+                    .role(claims.getStringClaim(roleClaim))
+                    .email(claims.getStringClaim("email"))
+                    .status(claims.getStringClaim("status"))
+                    // exp is required, so the verification cache never holds the token past its expiry
+                    .expiresAt(claims.getExpirationTime().toInstant())
+                    .build();
+        } catch (ParseException | BadJOSEException e) {
+            logger.warn("Local token verification failed: {}", e.getMessage());
+            throw new InvalidTokenException("Invalid token or authentication service error.", e);
+        } catch (JOSEException e) {
+            logger.error("Error during local token verification: {}", e.getMessage(), e);
+            throw new AuthServiceUnavailableException("Could not verify token with the configured key set.", e);
+        }
+    }
+}
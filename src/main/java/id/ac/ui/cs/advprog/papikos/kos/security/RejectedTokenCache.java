@@ -0,0 +1,54 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived negative cache of tokens the auth service has rejected.
+ * A token replayed within the TTL is rejected locally instead of being sent upstream again.
+ * Entries are keyed by the SHA-256 hash of the bearer token and exported under the
+ * {@code auth.token.rejected} cache name.
+ */
+@Component
+public class RejectedTokenCache {
+
+    static final String CACHE_NAME = "auth.token.rejected";
+
+    private final Cache<String, Boolean> cache;
+
+    public RejectedTokenCache(@Value("${auth.negative-cache.ttl:30s}") Duration ttl,
+                              @Value("${auth.negative-cache.max-size:10000}") long maxSize,
+                              MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Checks whether a token was recently rejected by the auth service.
+     *
+     * @param token The raw bearer token.
+     * @return {@code true} if the token was rejected within the TTL.
+     */
+    public boolean isRejected(String token) {
+        return cache.getIfPresent(TokenHashes.sha256(token)) != null;
+    }
+
+    /**
+     * Remembers that the auth service rejected a token.
+     *
+     * @param token The raw bearer token.
+     */
+    public void markRejected(String token) {
+        cache.put(TokenHashes.sha256(token), Boolean.TRUE);
+    }
+}
@@ -0,0 +1,61 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import id.ac.ui.cs.advprog.papikos.kos.exception.AuthServiceUnavailableException;
+import id.ac.ui.cs.advprog.papikos.kos.exception.InvalidTokenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Verifies bearer tokens by calling the auth service's {@code /api/v1/verify} endpoint
+ * through the resilient {@link AuthServiceClient}.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.verification.mode", havingValue = "remote", matchIfMissing = true)
+public class RemoteTokenVerifier implements TokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteTokenVerifier.class);
+
+    private final AuthServiceClient authServiceClient;
+
+    private final ObjectMapper objectMapper;
+
+    public RemoteTokenVerifier(AuthServiceClient authServiceClient, ObjectMapper objectMapper) {
+        this.authServiceClient = authServiceClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public VerifyTokenResponse.Data verify(String token) {
+        try {
+            ResponseEntity<String> verificationResponse = authServiceClient.verify(token);
+
+            if (!verificationResponse.getStatusCode().is2xxSuccessful()) {
+                logger.warn("Token verification failed with status: {}. Response: {}", verificationResponse.getStatusCode(), verificationResponse.getBody());
+                throw new InvalidTokenException("Token verification unsuccessful");
+            }
+
+            VerifyTokenResponse verifyTokenResponse = objectMapper.readValue(
+                    verificationResponse.getBody(),
+                    VerifyTokenResponse.class
+            );
+            return verifyTokenResponse.data;
+        } catch (HttpClientErrorException e) {
+            logger.warn("Client error during token verification: Status {}, Body {}", e.getStatusCode(), e.getResponseBodyAsString());
+            throw new InvalidTokenException("Invalid token or authentication service error.", e);
+        } catch (RestClientException e) {
+            logger.error("Error connecting to authentication service: {}", e.getMessage(), e);
+            throw new AuthServiceUnavailableException("Could not connect to authentication service.", e);
+        } catch (JsonProcessingException e) {
+            logger.error("Unreadable verification response from authentication service: {}", e.getMessage(), e);
+            throw new AuthServiceUnavailableException("Unreadable response from authentication service.", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+
+import java.io.IOException;
+
+/**
+ * Renders authentication failures raised while resolving a deferred bearer token.
+ * Rejected or missing tokens yield 401, throttled verification attempts yield 429,
+ * and an unreachable or unhealthy verification backend yields 503.
+ */
+public class TokenAuthenticationEntryPoint implements AuthenticationEntryPoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenAuthenticationEntryPoint.class);
+
+    @Override
+    public void commence(HttpServletRequest request,
+                         HttpServletResponse response,
+                         AuthenticationException authException) throws IOException {
+        if (authException instanceof AuthenticationServiceException) {
+            logger.error("Authentication service error for request URI {}: {}", request.getRequestURI(), authException.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } else if (authException instanceof VerificationThrottledException) {
+            logger.warn("Token verification throttled for request URI {}: {}", request.getRequestURI(), authException.getMessage());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        } else {
+            logger.warn("Authentication failed for request URI {}: {}", request.getRequestURI(), authException.getMessage());
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        }
+        response.getWriter().write("Authentication Failed: " + authException.getMessage());
+    }
+}
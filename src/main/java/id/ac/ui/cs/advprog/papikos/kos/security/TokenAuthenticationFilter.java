@@ -1,7 +1,8 @@
 package id.ac.ui.cs.advprog.papikos.kos.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import id.ac.ui.cs.advprog.papikos.kos.exception.AuthServiceUnavailableException;
+import id.ac.ui.cs.advprog.papikos.kos.exception.InvalidTokenException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,40 +10,50 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.function.Supplier;
 
 @Component
 public class TokenAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenAuthenticationFilter.class);
 
-    private final RestTemplate restTemplate;
-
-    @Value("${auth.service.url}")
-    private String authVerifyUrl;
+    private final TokenVerifier tokenVerifier;
 
     @Value("${internal.token.secret}")
     private String internalTokenSecret;
 
-    private final ObjectMapper objectMapper;
+    private final TokenVerificationCache tokenVerificationCache;
+
+    private final VerificationSingleFlight verificationSingleFlight;
+
+    private final RejectedTokenCache rejectedTokenCache;
+
+    private final VerificationRateLimiter verificationRateLimiter;
 
-    public TokenAuthenticationFilter(RestTemplate restTemplate, ObjectMapper objectMapper) {
-        this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+    private final ClientAddressResolver clientAddressResolver;
+
+    public TokenAuthenticationFilter(TokenVerifier tokenVerifier, TokenVerificationCache tokenVerificationCache,
+                                     VerificationSingleFlight verificationSingleFlight,
+                                     RejectedTokenCache rejectedTokenCache,
+                                     VerificationRateLimiter verificationRateLimiter,
+                                     ClientAddressResolver clientAddressResolver) {
+        this.tokenVerifier = tokenVerifier;
+        this.tokenVerificationCache = tokenVerificationCache;
+        this.verificationSingleFlight = verificationSingleFlight;
+        this.rejectedTokenCache = rejectedTokenCache;
+        this.verificationRateLimiter = verificationRateLimiter;
+        this.clientAddressResolver = clientAddressResolver;
     }
 
     @Override
@@ -73,54 +84,14 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
 
             if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
                 String token = authorizationHeader.substring(7); // Remove "Bearer " prefix
-
-                HttpHeaders headers = new HttpHeaders();
-                headers.setBearerAuth(token);
-                HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-                try {
-                    logger.info("Verifying token with auth server at URL: {}", authVerifyUrl);
-
-                    ResponseEntity<String> verificationResponse = restTemplate.exchange(
-                            authVerifyUrl + "/api/v1/verify",
-                            HttpMethod.POST,
-                            entity,
-                            String.class
-                    );
-
-                    VerifyTokenResponse verifyTokenResponse = objectMapper.readValue(
-                            verificationResponse.getBody(),
-                            VerifyTokenResponse.class
-                    );
-
-                    if (verificationResponse.getStatusCode().is2xxSuccessful()) {
-                        logger.info("Token verified successfully for request URI: {}", request.getRequestURI());
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                verifyTokenResponse.data.userId,
-                                "",                // Credentials
-                                Collections.singletonList(new SimpleGrantedAuthority(verifyTokenResponse.data.role)) // Authorities
-                        );
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    } else {
-                        logger.warn("Token verification failed with status: {}. Response: {}", verificationResponse.getStatusCode(), verificationResponse.getBody());
-                        SecurityContextHolder.clearContext();
-                        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                        response.getWriter().write("Authentication Failed: Token verification unsuccessful");
-                        return; // Stop filter chain
-                    }
-                } catch (HttpClientErrorException e) {
-                    logger.warn("Client error during token verification: Status {}, Body {}", e.getStatusCode(), e.getResponseBodyAsString());
-                    SecurityContextHolder.clearContext();
-                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                    response.getWriter().write("Authentication Failed: Invalid token or authentication service error.");
-                    return;
-                } catch (RestClientException e) {
-                    logger.error("Error connecting to authentication service: {}", e.getMessage(), e);
-                    SecurityContextHolder.clearContext();
-                    response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                    response.getWriter().write("Authentication Failed: Could not connect to authentication service.");
-                    return;
-                }
+                String requestUri = request.getRequestURI();
+                String clientAddress = clientAddressResolver.resolve(request);
+
+                // Verification is deferred until an authorization decision or a controller argument
+                // actually asks for the principal, so permitAll routes never reach the auth service.
+                // Failures surface as AuthenticationExceptions and are rendered by TokenAuthenticationEntryPoint.
+                SecurityContextHolder.getContextHolderStrategy()
+                        .setDeferredContext(new DeferredTokenContext(() -> resolveContext(token, requestUri, clientAddress)));
             } else {
                 logger.debug("No Bearer token found in Authorization header for request URI: {}", request.getRequestURI());
             }
@@ -128,4 +99,80 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response); // Continue filter chain
     }
-}
\ No newline at end of file
+
+    private SecurityContext resolveContext(String token, String requestUri, String clientAddress) {
+        VerifyTokenResponse.Data data;
+        try {
+            data = tokenVerificationCache.get(token);
+            if (data != null) {
+                logger.debug("Token verification served from cache for request URI: {}", requestUri);
+            } else {
+                if (rejectedTokenCache.isRejected(token)) {
+                    logger.debug("Token previously rejected, refusing locally for request URI: {}", requestUri);
+                    throw new BadCredentialsException("Token verification unsuccessful");
+                }
+                if (!verificationRateLimiter.tryAcquire(clientAddress)) {
+                    logger.warn("Token verification rate exceeded by client {} for request URI: {}", clientAddress, requestUri);
+                    throw new VerificationThrottledException("Too many token verification attempts.");
+                }
+                // Concurrent requests carrying the same token share a single upstream verification
+                data = verificationSingleFlight.execute(token, () -> {
+                    VerifyTokenResponse.Data verified;
+                    try {
+                        verified = tokenVerifier.verify(token);
+                    } catch (InvalidTokenException e) {
+                        rejectedTokenCache.markRejected(token);
+                        throw e;
+                    }
+                    logger.info("Token verified successfully for request URI: {}", requestUri);
+                    tokenVerificationCache.put(token, verified);
+                    return verified;
+                });
+            }
+        } catch (InvalidTokenException e) {
+            throw new BadCredentialsException(e.getMessage(), e);
+        } catch (AuthServiceUnavailableException e) {
+            throw new AuthenticationServiceException(e.getMessage(), e);
+        }
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                data.userId,
+                "",                // Credentials
+                Collections.singletonList(new SimpleGrantedAuthority(data.role)) // Authorities
+        );
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        return context;
+    }
+
+    /**
+     * Resolves the security context at most once per request and remembers either the context or the failure.
+     */
+    private static final class DeferredTokenContext implements Supplier<SecurityContext> {
+
+        private final Supplier<SecurityContext> resolver;
+
+        private SecurityContext context;
+
+        private RuntimeException failure;
+
+        private DeferredTokenContext(Supplier<SecurityContext> resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public synchronized SecurityContext get() {
+            if (context == null && failure == null) {
+                try {
+                    context = resolver.get();
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return context;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hashing helper for bearer tokens.
+ * Raw tokens are never used as keys in in-memory structures; only their SHA-256 digest is.
+ */
+final class TokenHashes {
+
+    private TokenHashes() {
+    }
+
+    /**
+     * Computes the hex encoded SHA-256 digest of the given token.
+     *
+     * @param token The raw bearer token.
+     * @return The lowercase hex digest of the token.
+     */
+    static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to ship SHA-256
+            throw new IllegalStateException("SHA-256 algorithm is not available", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Bounded, TTL based cache of successful token verifications.
+ * An entry never outlives the token it was verified from: a token reporting its expiry is cached until
+ * the earlier of the TTL and that expiry. Entries are keyed by the SHA-256 hash of the bearer token so raw tokens never stay in memory,
+ * and evicted with Caffeine's W-TinyLFU policy once the maximum size is reached.
+ * Hit, miss and eviction counts are exported under the {@code auth.token.verification} cache name.
+ */
+@Component
+public class TokenVerificationCache {
+
+    static final String CACHE_NAME = "auth.token.verification";
+
+    private final Cache<String, VerifyTokenResponse.Data> cache;
+
+    public TokenVerificationCache(@Value("${auth.cache.ttl:60s}") Duration ttl,
+                                  @Value("${auth.cache.max-size:10000}") long maxSize,
+                                  MeterRegistry meterRegistry) {
+        long ttlNanos = ttl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, VerifyTokenResponse.Data>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifyTokenResponse.Data data, long currentTime) {
+                        return lifetimeNanos(data, ttlNanos);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifyTokenResponse.Data data, long currentTime,
+                                                  long currentDuration) {
+                        return lifetimeNanos(data, ttlNanos);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifyTokenResponse.Data data, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    private static long lifetimeNanos(VerifyTokenResponse.Data data, long ttlNanos) {
+        if (data.expiresAt == null) {
+            return ttlNanos;
+        }
+        long untilExpiry = Duration.between(Instant.now(), data.expiresAt).toNanos();
+        return Math.max(0, Math.min(ttlNanos, untilExpiry));
+    }
+
+    /**
+     * Looks up a previously verified token.
+     *
+     * @param token The raw bearer token.
+     * @return The cached verification data, or {@code null} if the token is not cached or has expired.
+     */
+    public VerifyTokenResponse.Data get(String token) {
+        return cache.getIfPresent(TokenHashes.sha256(token));
+    }
+
+    /**
+     * Stores the verification result of a token that was accepted by the auth service.
+     *
+     * @param token The raw bearer token.
+     * @param data  The verified user data returned by the auth service.
+     */
+    public void put(String token, VerifyTokenResponse.Data data) {
+        cache.put(TokenHashes.sha256(token), data);
+    }
+
+    /**
+     * Removes a token from the cache, e.g. after it has been rejected.
+     *
+     * @param token The raw bearer token.
+     */
+    public void invalidate(String token) {
+        cache.invalidate(TokenHashes.sha256(token));
+    }
+}
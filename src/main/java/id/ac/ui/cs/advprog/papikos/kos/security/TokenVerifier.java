@@ -0,0 +1,21 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+
+/**
+ * Strategy for verifying bearer tokens.
+ * The active implementation is selected with the {@code auth.verification.mode} property:
+ * {@code remote} (default) asks the auth service, {@code local} checks JWT signatures in-process.
+ */
+public interface TokenVerifier {
+
+    /**
+     * Verifies a bearer token and resolves the user it was issued to.
+     *
+     * @param token The raw bearer token, without the "Bearer " prefix.
+     * @return The verified user data (userId, role, status).
+     * @throws id.ac.ui.cs.advprog.papikos.kos.exception.InvalidTokenException           if the token is rejected.
+     * @throws id.ac.ui.cs.advprog.papikos.kos.exception.AuthServiceUnavailableException if the token could not be verified at all.
+     */
+    VerifyTokenResponse.Data verify(String token);
+}
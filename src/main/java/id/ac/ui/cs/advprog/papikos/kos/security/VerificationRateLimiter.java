@@ -0,0 +1,93 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket limiter for upstream token verifications, keyed by client IP.
+ * Buckets live in a fixed array of stripes indexed by the hash of the client address, so memory
+ * stays bounded no matter how many addresses a client sprays; colliding addresses share a bucket.
+ */
+@Component
+public class VerificationRateLimiter {
+
+    private final Bucket[] stripes;
+
+    private final double capacity;
+
+    private final double refillPerNano;
+
+    private final LongSupplier nanoClock;
+
+    private final Counter throttledCounter;
+
+    @Autowired
+    public VerificationRateLimiter(@Value("${auth.rate-limit.capacity:20}") int capacity,
+                                   @Value("${auth.rate-limit.refill-per-second:5}") double refillPerSecond,
+                                   @Value("${auth.rate-limit.stripes:1024}") int stripes,
+                                   MeterRegistry meterRegistry) {
+        this(capacity, refillPerSecond, stripes, meterRegistry, System::nanoTime);
+    }
+
+    VerificationRateLimiter(int capacity, double refillPerSecond, int stripes,
+                            MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (capacity <= 0 || refillPerSecond <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity, refill rate and stripes must be positive");
+        }
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.nanoClock = nanoClock;
+        // Round up to a power of two so a stripe can be picked with a mask
+        this.stripes = new Bucket[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        long now = nanoClock.getAsLong();
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Bucket(capacity, now);
+        }
+        this.throttledCounter = Counter.builder("auth.token.verification.throttled")
+                .description("Token verifications refused because the client exceeded its verification rate")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one verification permit for the given client.
+     *
+     * @param clientAddress The client's IP address.
+     * @return {@code true} if the client may call the auth service, {@code false} if it is throttled.
+     */
+    public boolean tryAcquire(String clientAddress) {
+        int hash = clientAddress == null ? 0 : clientAddress.hashCode();
+        Bucket bucket = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        boolean acquired = bucket.tryAcquire(nanoClock.getAsLong());
+        if (!acquired) {
+            throttledCounter.increment();
+        }
+        return acquired;
+    }
+
+    private final class Bucket {
+
+        private double tokens;
+
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefillNanos = now;
+        }
+
+        private synchronized boolean tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent verifications of the same token into a single upstream call.
+ * The first caller for a token hash runs the verification; callers arriving while it is in flight
+ * wait for it and share its result or its failure.
+ */
+@Component
+public class VerificationSingleFlight {
+
+    private final Map<String, CompletableFuture<VerifyTokenResponse.Data>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter coalescedCounter;
+
+    public VerificationSingleFlight(MeterRegistry meterRegistry) {
+        this.coalescedCounter = Counter.builder("auth.token.verification.coalesced")
+                .description("Token verifications that waited on an identical in-flight verification")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.token.verification.inflight", inFlight, Map::size);
+    }
+
+    /**
+     * Runs the verification for the given token, unless one is already in flight.
+     *
+     * @param token        The raw bearer token; only its hash is used as the in-flight key.
+     * @param verification The verification to run if this caller is the first one for the token.
+     * @return The verification result, shared by all concurrent callers.
+     */
+    public VerifyTokenResponse.Data execute(String token, Supplier<VerifyTokenResponse.Data> verification) {
+        String key = TokenHashes.sha256(token);
+        CompletableFuture<VerifyTokenResponse.Data> call = new CompletableFuture<>();
+        CompletableFuture<VerifyTokenResponse.Data> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return await(existing);
+        }
+
+        try {
+            VerifyTokenResponse.Data data = verification.get();
+            call.complete(data);
+            return data;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static VerifyTokenResponse.Data await(CompletableFuture<VerifyTokenResponse.Data> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Thrown when a client exceeds its token verification rate.
+ */
+public class VerificationThrottledException extends AuthenticationException {
+
+    /**
+     * Constructs a new VerificationThrottledException with the specified detail message.
+     *
+     * @param message The detail message.
+     */
+    public VerificationThrottledException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,22 @@
 package id.ac.ui.cs.advprog.papikos.kos.service;
 
+import id.ac.ui.cs.advprog.papikos.kos.dto.CursorPage;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosBatch;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosField;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosFilter;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosListVersion;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosSummary;
+import id.ac.ui.cs.advprog.papikos.kos.dto.SlicePage;
 import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
 import org.apache.coyote.BadRequestException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -23,11 +36,36 @@ public interface KosService {
     Kos createKos(Kos kos, UUID ownerUserId) throws IllegalArgumentException;
 
     /**
-     * Finds all Kos listings.
+     * Finds one page of Kos listings, ordered by creation time and ID, as lightweight summaries.
      *
-     * @return A list of all Kos entities. Returns an empty list if none exist.
+     * @param after An opaque cursor from a previous page's {@code nextCursor}, or {@code null} for the first page.
+     * @param limit The maximum number of Kos to return; values above the maximum page size are capped.
+     * @return The page of Kos summaries and the cursor of the next page, if any.
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is not positive.
      */
-    List<Kos> findAllKos();
+    CursorPage<KosSummary> findKosPage(String after, int limit) throws IllegalArgumentException;
+
+    /**
+     * Finds one page of Kos listings like {@link #findKosPage(String, int)}, selecting only the requested fields.
+     *
+     * @param after  An opaque cursor from a previous page's {@code nextCursor}, or {@code null} for the first page.
+     * @param limit  The maximum number of Kos to return; values above the maximum page size are capped.
+     * @param fields The fields to return for each Kos.
+     * @return The page of field maps and the cursor of the next page, if any.
+     * @throws IllegalArgumentException if the cursor is malformed or the limit is not positive.
+     */
+    CursorPage<Map<String, Object>> findKosFieldPage(String after, int limit, Set<KosField> fields)
+            throws IllegalArgumentException;
+
+    /**
+     * Writes every Kos listing to the given stream as newline-delimited JSON, one object per line.
+     * Rows are streamed from the database through a cursor, so heap use does not depend on the table size.
+     *
+     * @param outputStream The stream to write to; it is flushed but not closed.
+     * @return The number of Kos written.
+     * @throws IOException if writing to the stream fails.
+     */
+    long exportKos(OutputStream outputStream) throws IOException;
 
     /**
      * Finds a specific Kos listing by its unique ID.
@@ -39,12 +77,58 @@ public interface KosService {
     Kos findKosById(UUID kosId);
 
     /**
-     * Finds all Kos listings belonging to a specific owner.
+     * Finds the requested fields of a specific Kos, reading only those columns.
+     *
+     * @param kosId  The UUID of the Kos to find.
+     * @param fields The fields to return.
+     * @return The requested fields of the Kos, in field order.
+     * @throws id.ac.ui.cs.advprog.papikos.kos.exception.KosNotFoundException if no Kos with the given ID exists.
+     */
+    Map<String, Object> findKosFieldsById(UUID kosId, Set<KosField> fields);
+
+    /**
+     * Finds many Kos listings by ID in one round trip, serving cached Kos from the cache and loading the rest with a
+     * single query. Duplicate IDs are looked up once.
+     *
+     * @param kosIds The UUIDs of the Kos to find; at most the maximum batch size.
+     * @return The Kos found, keyed by ID, and the IDs that do not exist.
+     * @throws IllegalArgumentException if no IDs are given, an ID is null, or there are more than the maximum batch size.
+     */
+    KosBatch findKosByIds(List<UUID> kosIds) throws IllegalArgumentException;
+
+    /**
+     * Finds when a Kos was last modified, from the cache or a single-column query rather than the whole entity.
+     *
+     * @param kosId The UUID of the Kos.
+     * @return The last modification time of the Kos.
+     * @throws id.ac.ui.cs.advprog.papikos.kos.exception.KosNotFoundException if no Kos with the given ID exists.
+     */
+    LocalDateTime findKosLastModified(UUID kosId);
+
+    /**
+     * Finds the number of Kos an owner has and when the most recent of them was modified, without loading them.
+     *
+     * @param ownerUserId The UUID of the owner.
+     * @return The version of the owner's Kos list; the last modification time is {@code null} if the list is empty.
+     */
+    KosListVersion findKosListVersionByOwnerUserId(UUID ownerUserId);
+
+    /**
+     * Finds all Kos listings belonging to a specific owner, oldest first, as lightweight summaries.
      *
      * @param ownerUserId The UUID of the owner whose Kos listings are to be retrieved.
-     * @return A list of Kos entities owned by the specified user. Returns an empty list if the owner has no Kos listings.
+     * @return A list of summaries of the Kos owned by the specified user. Returns an empty list if the owner has no Kos listings.
      */
-    List<Kos> findKosByOwnerUserId(UUID ownerUserId);
+    List<KosSummary> findKosByOwnerUserId(UUID ownerUserId);
+
+    /**
+     * Finds the requested fields of all Kos listings belonging to a specific owner, oldest first.
+     *
+     * @param ownerUserId The UUID of the owner whose Kos listings are to be retrieved.
+     * @param fields      The fields to return for each Kos.
+     * @return The requested fields of each Kos owned by the specified user.
+     */
+    List<Map<String, Object>> findKosFieldsByOwnerUserId(UUID ownerUserId, Set<KosField> fields);
 
     /**
      * Updates an existing Kos listing.
@@ -74,17 +158,41 @@ public interface KosService {
 
     /**
      * Searches for Kos listings based on a keyword.
-     * The search typically looks in fields like name, address, and description.
+     * The search looks in name, address, and description, and ranks matches in the name above the others.
+     * Keywords that match no whole word fall back to similarity matching on partial names and addresses.
      *
      * @param keyword The search term.
-     * @return A list of Kos entities matching the keyword. Returns an empty list if no matches are found.
+     * @param limit   The maximum number of results; values above the maximum page size are capped.
+     * @param offset  The number of ranked results to skip.
+     * @return A list of summaries of the Kos matching the keyword, best match first. Returns an empty list if no matches are found.
+     * @throws IllegalArgumentException if the limit is not positive or the offset is negative.
+     */
+    List<KosSummary> searchKos(String keyword, int limit, int offset) throws IllegalArgumentException;
+
+    /**
+     * Filters listed Kos by price range and vacancy, returning lightweight summaries.
+     * Unset criteria are unbounded. No total count is computed; {@code hasNext} tells whether another page exists.
+     *
+     * @param filter The filter criteria and sort order.
+     * @param page   The zero-based page number.
+     * @param size   The page size; values above the maximum page size are capped.
+     * @return One page of matching Kos summaries.
+     * @throws IllegalArgumentException if the page, size, price range or minimum free rooms are invalid.
      */
-    List<Kos> searchKos(String keyword);
+    SlicePage<KosSummary> filterKos(KosFilter filter, int page, int size) throws IllegalArgumentException;
 
     /**
-     * Updates occupied rooms count for a specific Kos.
+     * Applies many occupancy changes in one transaction, with one conditional update per Kos for the sum of its
+     * changes. When a Kos's sum does not fit, its changes are applied one by one in order and those that do not fit
+     * are skipped, so a single overflowing change does not cost the others.
+     * <p>
+     * Changes that carry a rental ID are applied at most once: a change whose rental event was already applied,
+     * by an earlier delivery or earlier in the same list, is skipped without being counted as rejected. The rental
+     * IDs are recorded in the same transaction as the changes.
      *
-     * @param kosId The UUID of the Kos to update.
+     * @param changes The changes, in arrival order.
+     * @return The positions in {@code changes} of the changes that were not applied, because they would take the
+     * count out of range or their Kos does not exist. Skipped duplicates are not included.
      */
-    void updateOccupiedRooms(UUID kosId, int occupiedRooms);
+    Set<Integer> applyOccupancyChanges(List<KosOccupancyChange> changes);
 }
\ No newline at end of file
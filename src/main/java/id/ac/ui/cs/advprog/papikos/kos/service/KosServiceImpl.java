@@ -1,19 +1,65 @@
 package id.ac.ui.cs.advprog.papikos.kos.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosCache;
+import id.ac.ui.cs.advprog.papikos.kos.dto.CursorPage;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosBatch;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosCursor;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosField;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosFilter;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosListVersion;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosSummary;
+import id.ac.ui.cs.advprog.papikos.kos.dto.SlicePage;
+import id.ac.ui.cs.advprog.papikos.kos.cache.ProcessedRentalIdCache;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.event.RentalEventsProcessedEvent;
 import id.ac.ui.cs.advprog.papikos.kos.exception.KosNotFoundException;
 import id.ac.ui.cs.advprog.papikos.kos.exception.UnauthorizedAccessException;
 import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.model.ProcessedRentalEvent;
 import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import id.ac.ui.cs.advprog.papikos.kos.repository.ProcessedRentalEventRepository;
+import id.ac.ui.cs.advprog.papikos.kos.search.KosSearchIndex;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 // @RequiredArgsConstructor // We will manually create constructor for RestTemplate injection
@@ -21,11 +67,50 @@ public class KosServiceImpl implements KosService {
 
     private static final Logger logger = LoggerFactory.getLogger(KosServiceImpl.class);
 
+    static final int MAX_PAGE_SIZE = 100;
+
+    static final int MAX_BATCH_SIZE = 500;
+
+    // Open bounds used in place of unset filter criteria, so the filter query has no "IS NULL OR" branches
+    static final BigDecimal MIN_FILTER_PRICE = BigDecimal.ZERO;
+    static final BigDecimal MAX_FILTER_PRICE = new BigDecimal("99999999.99");
+
+    private static final Sort PRICE_SORT = Sort.by(Sort.Order.asc("monthlyRentPrice"), Sort.Order.asc("id"));
+    private static final Sort NEWEST_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     private final KosRepository kosRepository;
 
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final KosSearchIndex kosSearchIndex;
+
+    private final KosCache kosCache;
+
+    private final ProcessedRentalEventRepository processedRentalEventRepository;
+
+    private final ProcessedRentalIdCache processedRentalIdCache;
+
+    @Value("${kos.search.trigram.word-similarity-threshold:0.5}")
+    private double trigramWordSimilarityThreshold;
+
     // Constructor injection
-    public KosServiceImpl(KosRepository kosRepository, RestTemplate restTemplate) {
+    public KosServiceImpl(KosRepository kosRepository, RestTemplate restTemplate,
+                          EntityManager entityManager, ObjectMapper objectMapper,
+                          ApplicationEventPublisher eventPublisher, KosSearchIndex kosSearchIndex,
+                          KosCache kosCache, ProcessedRentalEventRepository processedRentalEventRepository,
+                          ProcessedRentalIdCache processedRentalIdCache) {
         this.kosRepository = kosRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.kosSearchIndex = kosSearchIndex;
+        this.kosCache = kosCache;
+        this.processedRentalEventRepository = processedRentalEventRepository;
+        this.processedRentalIdCache = processedRentalIdCache;
     }
 
     @Override
@@ -34,32 +119,162 @@ public class KosServiceImpl implements KosService {
         validateKosInput(kos, true);
         kos.setOwnerUserId(ownerUserId);
         logger.info("Creating Kos with name '{}' for ownerId {}", kos.getName(), ownerUserId);
-        return kosRepository.save(kos);
+        Kos createdKos = kosRepository.save(kos);
+        eventPublisher.publishEvent(KosChangedEvent.upserted(createdKos));
+        return createdKos;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Kos> findAllKos() {
-        return kosRepository.findAll();
+    public CursorPage<KosSummary> findKosPage(String after, int limit) throws IllegalArgumentException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        // Fetch one extra row to learn whether another page follows without a count query
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<KosSummary> rows;
+        if (after == null || after.isEmpty()) {
+            rows = kosRepository.findFirstSummaryPage(fetchLimit);
+        } else {
+            KosCursor cursor = KosCursor.decode(after);
+            rows = kosRepository.findSummaryPageAfter(cursor.getCreatedAt(), cursor.getId(), fetchLimit);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<KosSummary> items = rows.subList(0, pageSize);
+        KosSummary last = items.get(pageSize - 1);
+        return new CursorPage<>(items, new KosCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> findKosFieldPage(String after, int limit, Set<KosField> fields)
+            throws IllegalArgumentException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        KosCursor cursor = after == null || after.isEmpty() ? null : KosCursor.decode(after);
+        // The next cursor is built from the last row's key, so the key is selected even when it was not requested
+        Set<KosField> selected = EnumSet.of(KosField.ID, KosField.CREATED_AT);
+        selected.addAll(fields);
+
+        List<Map<String, Object>> rows = kosRepository.findFieldPage(selected, cursor, pageSize + 1);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Map<String, Object> last = rows.get(pageSize - 1);
+            nextCursor = new KosCursor((LocalDateTime) last.get(KosField.CREATED_AT.getJsonName()),
+                    (UUID) last.get(KosField.ID.getJsonName())).encode();
+        }
+        for (KosField key : selected) {
+            if (!fields.contains(key)) {
+                rows.forEach(row -> row.remove(key.getJsonName()));
+            }
+        }
+        return new CursorPage<>(rows, nextCursor);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public long exportKos(OutputStream outputStream) throws IOException {
+        // Flushing is left to the generator's buffer instead of happening after every row. Rows are ended by the
+        // newline written below, so Jackson's default root value separator, a space, must not precede them
+        ObjectWriter writer = objectMapper.writerFor(Kos.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator((String) null);
+        long exported = 0;
+        try (Stream<Kos> rows = kosRepository.streamAllBy();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            // The caller owns the output stream, e.g. a gzip wrapper that still has to write its trailer
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Iterator<Kos> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Kos kos = iterator.next();
+                writer.writeValue(generator, kos);
+                generator.writeRaw('\n');
+                // Keep the persistence context from accumulating every streamed row
+                entityManager.detach(kos);
+                exported++;
+            }
+        }
+        logger.info("Exported {} Kos rows", exported);
+        return exported;
+    }
+
+    // Not transactional: a cache hit should not check out a connection
+    @Override
     public Kos findKosById(UUID kosId) {
+        return kosCache.findById(kosId)
+                .orElseThrow(() -> new KosNotFoundException(kosId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> findKosFieldsById(UUID kosId, Set<KosField> fields) {
+        return kosRepository.findFieldsById(fields, kosId)
+                .orElseThrow(() -> new KosNotFoundException(kosId));
+    }
+
+    @Override
+    public KosBatch findKosByIds(List<UUID> kosIds) throws IllegalArgumentException {
+        if (kosIds == null || kosIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one Kos ID is required.");
+        }
+        if (kosIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Kos IDs cannot be null.");
+        }
+        Set<UUID> uniqueIds = new LinkedHashSet<>(kosIds);
+        if (uniqueIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " Kos IDs can be requested at once.");
+        }
+        Map<UUID, Kos> found = kosCache.findAllById(uniqueIds);
+        List<UUID> missing = uniqueIds.stream()
+                .filter(kosId -> !found.containsKey(kosId))
+                .toList();
+        return new KosBatch(found, missing);
+    }
+
+    @Override
+    public LocalDateTime findKosLastModified(UUID kosId) {
+        return kosCache.getIfPresent(kosId)
+                .map(Kos::getUpdatedAt)
+                .or(() -> kosRepository.findUpdatedAtById(kosId))
+                .orElseThrow(() -> new KosNotFoundException(kosId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KosListVersion findKosListVersionByOwnerUserId(UUID ownerUserId) {
+        return kosRepository.findListVersionByOwnerUserId(ownerUserId);
+    }
+
+    // Mutations work on the managed entity, never on a cached snapshot
+    private Kos loadKos(UUID kosId) {
         return kosRepository.findById(kosId)
                 .orElseThrow(() -> new KosNotFoundException(kosId));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Kos> findKosByOwnerUserId(UUID ownerUserId) {
-        return kosRepository.findKosByOwnerUserId(ownerUserId);
+    public List<KosSummary> findKosByOwnerUserId(UUID ownerUserId) {
+        return kosRepository.findSummariesByOwnerUserId(ownerUserId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findKosFieldsByOwnerUserId(UUID ownerUserId, Set<KosField> fields) {
+        return kosRepository.findFieldsByOwnerUserId(fields, ownerUserId);
     }
 
     @Override
     @Transactional
     public Kos updateKos(UUID kosId, Kos updatedKosData, UUID requestingUserId) throws IllegalArgumentException {
-        Kos existingKos = findKosById(kosId);
+        Kos existingKos = loadKos(kosId);
 
         if (!existingKos.getOwnerUserId().equals(requestingUserId)) {
             throw new UnauthorizedAccessException("User " + requestingUserId + " is not authorized to update Kos " + kosId);
@@ -84,42 +299,170 @@ public class KosServiceImpl implements KosService {
             existingKos.setIsListed(updatedKosData.getIsListed());
         }
         logger.info("Updating Kos with ID '{}' by user {}", kosId, requestingUserId);
-        return kosRepository.save(existingKos);
+        Kos updatedKos = kosRepository.save(existingKos);
+        eventPublisher.publishEvent(KosChangedEvent.upserted(updatedKos));
+        return updatedKos;
     }
 
     @Override
     @Transactional
     public void deleteKos(UUID kosId, UUID requestingUserId) {
-        Kos kosToDelete = findKosById(kosId);
+        Kos kosToDelete = loadKos(kosId);
 
         if (!kosToDelete.getOwnerUserId().equals(requestingUserId)) {
             throw new UnauthorizedAccessException("User " + requestingUserId + " is not authorized to delete Kos " + kosId);
         }
         logger.info("Deleting Kos with ID '{}' by user {}", kosId, requestingUserId);
         kosRepository.deleteById(kosId);
+        eventPublisher.publishEvent(KosChangedEvent.deleted(kosId));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Kos> searchKos(String keyword) {
+    public List<KosSummary> searchKos(String keyword, int limit, int offset) throws IllegalArgumentException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative.");
+        }
         if (!StringUtils.hasText(keyword)) {
             return Collections.emptyList();
         }
-        return kosRepository.findKosByNameContainingIgnoreCaseOrAddressContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
-                keyword, keyword, keyword
-        );
+        String trimmedKeyword = keyword.trim();
+        int pageSize = Math.min(limit, MAX_PAGE_SIZE);
+        List<UUID> rankedIds = searchIdsByWords(trimmedKeyword, pageSize, offset);
+        // Page past the end of a whole-word result set is simply empty; only keywords without any whole-word
+        // match (partial street or neighbourhood names) fall back to trigram infix matching
+        if (rankedIds.isEmpty() && (offset == 0 || searchIdsByWords(trimmedKeyword, 1, 0).isEmpty())) {
+            kosRepository.setWordSimilarityThreshold(String.valueOf(trigramWordSimilarityThreshold));
+            rankedIds = kosRepository.searchIdsBySimilarity(trimmedKeyword.toLowerCase(Locale.ROOT), pageSize, offset);
+        }
+        return findSummariesInOrder(rankedIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SlicePage<KosSummary> filterKos(KosFilter filter, int page, int size) throws IllegalArgumentException {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page cannot be negative.");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive.");
+        }
+        BigDecimal minPrice = filter.getMinPrice() != null ? filter.getMinPrice() : MIN_FILTER_PRICE;
+        BigDecimal maxPrice = filter.getMaxPrice() != null ? filter.getMaxPrice() : MAX_FILTER_PRICE;
+        int minFreeRooms = filter.getMinFreeRooms() != null ? filter.getMinFreeRooms() : 0;
+        if (minPrice.signum() < 0 || maxPrice.compareTo(minPrice) < 0) {
+            throw new IllegalArgumentException("Price range is invalid.");
+        }
+        if (minFreeRooms < 0) {
+            throw new IllegalArgumentException("Minimum free rooms cannot be negative.");
+        }
+
+        Sort sort = filter.getSort() == KosFilter.Sort.PRICE ? PRICE_SORT : NEWEST_SORT;
+        PageRequest pageRequest = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), sort);
+        Slice<KosSummary> slice = kosRepository.filterListedSummaries(minPrice, maxPrice, minFreeRooms, pageRequest);
+        return new SlicePage<>(slice.getContent(), page, pageRequest.getPageSize(), slice.hasNext());
+    }
+
+    private List<UUID> searchIdsByWords(String keyword, int limit, int offset) {
+        if (!kosSearchIndex.isReady()) {
+            // The in-memory index is still warming up (or disabled)
+            return kosRepository.searchIdsByFullText(keyword, limit, offset);
+        }
+        return kosSearchIndex.search(keyword, limit, offset);
+    }
+
+    private List<KosSummary> findSummariesInOrder(List<UUID> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<UUID, KosSummary> summaryById = kosRepository.findSummariesByIdIn(rankedIds).stream()
+                .collect(Collectors.toMap(KosSummary::getId, Function.identity()));
+        // Kos deleted since they were ranked are left out
+        return rankedIds.stream()
+                .map(summaryById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
     @Transactional
-    public void updateOccupiedRooms(UUID kosId, int occupiedRooms) {
-        Kos kos = findKosById(kosId);
-        if (occupiedRooms < 0 || kos.getOccupiedRooms() + occupiedRooms > kos.getNumRooms()) {
-            throw new IllegalArgumentException("Occupied rooms must be between 0 and the total number of rooms.");
-        }
-        kos.setOccupiedRooms(kos.getOccupiedRooms() + occupiedRooms);
-        kosRepository.save(kos);
-        logger.info("Updated occupied rooms for Kos ID {} to {}", kosId, occupiedRooms);
+    public Set<Integer> applyOccupancyChanges(List<KosOccupancyChange> changes) {
+        Set<Integer> duplicates = findAlreadyProcessed(changes);
+        // Kos are updated in ID order, so concurrent batches take their row locks in the same order
+        Map<UUID, List<Integer>> positionsByKosId = new TreeMap<>();
+        for (int position = 0; position < changes.size(); position++) {
+            if (!duplicates.contains(position)) {
+                positionsByKosId.computeIfAbsent(changes.get(position).getKosId(), kosId -> new ArrayList<>()).add(position);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Set<Integer> rejected = new TreeSet<>();
+        positionsByKosId.forEach((kosId, positions) -> {
+            int total = positions.stream().mapToInt(position -> changes.get(position).getDelta()).sum();
+            boolean changed = kosRepository.addOccupiedRooms(kosId, total, now) > 0;
+            if (!changed && !kosRepository.existsById(kosId)) {
+                rejected.addAll(positions);
+            } else if (!changed) {
+                for (int position : positions) {
+                    if (kosRepository.addOccupiedRooms(kosId, changes.get(position).getDelta(), now) > 0) {
+                        changed = true;
+                    } else {
+                        rejected.add(position);
+                    }
+                }
+            }
+            if (changed) {
+                eventPublisher.publishEvent(KosChangedEvent.occupancyChanged(kosId));
+            }
+        });
+
+        // Recorded in the same transaction as the changes: a concurrent delivery of the same event fails on the
+        // primary key and rolls back, so at most one of them is applied
+        List<ProcessedRentalEvent> processed = new ArrayList<>();
+        for (int position = 0; position < changes.size(); position++) {
+            KosOccupancyChange change = changes.get(position);
+            if (change.getRentalId() != null && !rejected.contains(position) && !duplicates.contains(position)) {
+                processed.add(new ProcessedRentalEvent(change.getRentalId(), change.getKosId(), now));
+            }
+        }
+        if (!processed.isEmpty()) {
+            processedRentalEventRepository.saveAllAndFlush(processed);
+            // Only IDs with a row in this transaction reach the recent IDs cache, and only once it commits; a
+            // duplicate of a rejected change has no row and must stay retryable
+            eventPublisher.publishEvent(new RentalEventsProcessedEvent(
+                    processed.stream().map(ProcessedRentalEvent::getRentalId).toList()));
+        }
+        logger.info("Applied {} of {} occupancy changes across {} Kos, skipping {} already processed",
+                changes.size() - rejected.size() - duplicates.size(), changes.size(), positionsByKosId.size(),
+                duplicates.size());
+        return rejected;
+    }
+
+    /**
+     * Finds the changes whose rental event has already been applied: by an earlier change in the same list, or by
+     * an earlier delivery according to the recent IDs cache or the processed events table.
+     */
+    private Set<Integer> findAlreadyProcessed(List<KosOccupancyChange> changes) {
+        Set<Integer> duplicates = new HashSet<>();
+        Map<String, Integer> positionsToCheck = new HashMap<>();
+        for (int position = 0; position < changes.size(); position++) {
+            String rentalId = changes.get(position).getRentalId();
+            if (rentalId == null) {
+                continue;
+            }
+            if (processedRentalIdCache.contains(rentalId) || positionsToCheck.putIfAbsent(rentalId, position) != null) {
+                duplicates.add(position);
+            }
+        }
+        if (!positionsToCheck.isEmpty()) {
+            for (String rentalId : processedRentalEventRepository.findProcessedRentalIds(positionsToCheck.keySet())) {
+                duplicates.add(positionsToCheck.get(rentalId));
+            }
+        }
+        return duplicates;
     }
 
     private void validateKosInput(Kos kos, boolean isCreate) {
@@ -0,0 +1,48 @@
+package id.ac.ui.cs.advprog.papikos.kos.service;
+
+import id.ac.ui.cs.advprog.papikos.kos.repository.ProcessedRentalEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes processed rental event records once they are older than the retention period, by which time the
+ * broker will no longer redeliver the event.
+ */
+@Component
+public class ProcessedRentalEventSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessedRentalEventSweeper.class);
+
+    static final int DELETE_BATCH_SIZE = 1000;
+
+    private final ProcessedRentalEventRepository processedRentalEventRepository;
+
+    private final Duration retention;
+
+    public ProcessedRentalEventSweeper(ProcessedRentalEventRepository processedRentalEventRepository,
+                                       @Value("${kos.rental.dedupe.retention:P7D}") Duration retention) {
+        this.processedRentalEventRepository = processedRentalEventRepository;
+        this.retention = retention;
+    }
+
+    @Scheduled(initialDelayString = "${kos.rental.dedupe.sweep-interval:PT1H}",
+            fixedDelayString = "${kos.rental.dedupe.sweep-interval:PT1H}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long deleted = 0;
+        int batch;
+        do {
+            batch = processedRentalEventRepository.deleteProcessedBefore(cutoff, DELETE_BATCH_SIZE);
+            deleted += batch;
+        } while (batch == DELETE_BATCH_SIZE);
+        if (deleted > 0) {
+            logger.info("Deleted {} processed rental event records older than {}", deleted, cutoff);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+-- Baseline: the kos table as Hibernate generated it, plus the search and filter indexes that used to be applied
+-- by schema-postgresql.sql. Databases created before migrations were introduced are baselined at version 0,
+-- so every statement here must also be a no-op on an existing schema.
+
+CREATE TABLE IF NOT EXISTS kos (
+    id                 uuid           NOT NULL PRIMARY KEY,
+    owner_user_id      uuid           NOT NULL,
+    name               varchar(255)   NOT NULL,
+    address            text           NOT NULL,
+    description        text,
+    num_rooms          integer        NOT NULL,
+    monthly_rent_price numeric(10, 2) NOT NULL,
+    occupied_rooms     integer        NOT NULL DEFAULT 0,
+    is_listed          boolean        NOT NULL,
+    created_at         timestamp(6),
+    updated_at         timestamp(6)
+);
+
+-- Keyset pagination of the full listing
+CREATE INDEX IF NOT EXISTS idx_kos_created_at_id ON kos (created_at, id);
+
+-- Weighted full-text document: name ranks above address, address above description.
+-- The 'simple' configuration is used because listings are mostly Indonesian, which has no built-in stemmer.
+ALTER TABLE kos ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(address, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_kos_search_vector ON kos USING GIN (search_vector);
+
+-- Trigram indexes for infix matching on partial street and neighbourhood names ("margonda", "jl. kukel"),
+-- which tokenized full-text search misses. Creating the extension needs a role allowed to do so.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_kos_name_trgm ON kos USING GIN (lower(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_kos_address_trgm ON kos USING GIN (lower(address) gin_trgm_ops);
+
+-- Structured filter over listed Kos: one partial index per sort order, plus free rooms for vacancy-only filters.
+CREATE INDEX IF NOT EXISTS idx_kos_listed_price ON kos (monthly_rent_price, id) WHERE is_listed;
+
+CREATE INDEX IF NOT EXISTS idx_kos_listed_newest ON kos (created_at DESC, id DESC) WHERE is_listed;
+
+CREATE INDEX IF NOT EXISTS idx_kos_listed_free_rooms ON kos ((num_rooms - occupied_rooms)) WHERE is_listed;
@@ -0,0 +1,8 @@
+-- Owner lookups (GET /api/v1/my and its conditional-request version check) no longer scan the table.
+CREATE INDEX IF NOT EXISTS idx_kos_owner_user_id ON kos (owner_user_id);
+
+-- Listing status and price. With id as the last key it also serves the price-sorted filter
+-- (is_listed = true, price range, ORDER BY price, id), so it replaces the partial price index.
+CREATE INDEX IF NOT EXISTS idx_kos_listed_price_composite ON kos (is_listed, monthly_rent_price, id);
+
+DROP INDEX IF EXISTS idx_kos_listed_price;
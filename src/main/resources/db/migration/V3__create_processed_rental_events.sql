@@ -0,0 +1,11 @@
+-- Rental events whose occupancy change has been applied, keyed by the rental service's rental ID. The row is
+-- written in the same transaction as the change, so a redelivered event finds it and is skipped, and two
+-- concurrent deliveries of one event cannot both commit. Rows past the retention period are deleted in batches.
+
+CREATE TABLE processed_rental_events (
+    rental_id    varchar(255) NOT NULL PRIMARY KEY,
+    kos_id       uuid         NOT NULL,
+    processed_at timestamp(6) NOT NULL
+);
+
+CREATE INDEX idx_processed_rental_events_processed_at ON processed_rental_events (processed_at);
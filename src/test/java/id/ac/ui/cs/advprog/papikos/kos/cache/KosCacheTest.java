@@ -0,0 +1,121 @@
+package id.ac.ui.cs.advprog.papikos.kos.cache;
+
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KosCacheTest {
+
+    @Mock
+    private KosRepository kosRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private KosCache kosCache;
+    private Kos kos;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        kosCache = new KosCache(kosRepository, Duration.ofMinutes(1), 100, meterRegistry);
+
+        kos = new Kos(UUID.randomUUID(), UUID.randomUUID(), "Kos Melati", "Jl. Margonda Raya No. 1",
+                "Dekat kampus", 10, new BigDecimal("1500000.00"), 2, true,
+                LocalDateTime.now().minusDays(1), LocalDateTime.now());
+    }
+
+    @Test
+    void findById_SecondCall_IsServedFromCache() {
+        when(kosRepository.findById(kos.getId())).thenReturn(Optional.of(kos));
+
+        assertEquals(Optional.of(kos), kosCache.findById(kos.getId()));
+        assertEquals(Optional.of(kos), kosCache.findById(kos.getId()));
+
+        verify(kosRepository, times(1)).findById(kos.getId());
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", KosCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void findById_MutatingResult_DoesNotChangeCachedSnapshot() {
+        when(kosRepository.findById(kos.getId())).thenReturn(Optional.of(kos));
+
+        Kos first = kosCache.findById(kos.getId()).orElseThrow();
+        first.setName("Changed by caller");
+        kos.setName("Changed in the loaded entity");
+
+        assertEquals("Kos Melati", kosCache.findById(kos.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void getIfPresent_DoesNotLoadOrCountAsLookup() {
+        assertTrue(kosCache.getIfPresent(kos.getId()).isEmpty());
+        verifyNoInteractions(kosRepository);
+
+        when(kosRepository.findById(kos.getId())).thenReturn(Optional.of(kos));
+        kosCache.findById(kos.getId());
+        assertEquals(Optional.of(kos), kosCache.getIfPresent(kos.getId()));
+
+        assertEquals(0.0, meterRegistry.get("cache.gets")
+                .tag("cache", KosCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findAllById_LoadsOnlyMissesInOneQuery() {
+        Kos other = KosCache.copyOf(kos);
+        other.setId(UUID.randomUUID());
+        UUID missingId = UUID.randomUUID();
+        when(kosRepository.findById(kos.getId())).thenReturn(Optional.of(kos));
+        kosCache.findById(kos.getId());
+        when(kosRepository.findAllById(anyIterable())).thenReturn(List.of(other));
+
+        Map<UUID, Kos> found = kosCache.findAllById(List.of(missingId, other.getId(), kos.getId()));
+
+        assertEquals(List.of(other.getId(), kos.getId()), List.copyOf(found.keySet()));
+        ArgumentCaptor<Iterable<UUID>> loadedIds = ArgumentCaptor.forClass(Iterable.class);
+        verify(kosRepository, times(1)).findAllById(loadedIds.capture());
+        assertEquals(Set.of(missingId, other.getId()), Set.copyOf((List<UUID>) loadedIds.getValue()));
+    }
+
+    @Test
+    void findById_Missing_IsNotCached() {
+        UUID missingId = UUID.randomUUID();
+        when(kosRepository.findById(missingId)).thenReturn(Optional.empty());
+
+        assertTrue(kosCache.findById(missingId).isEmpty());
+        assertTrue(kosCache.findById(missingId).isEmpty());
+
+        verify(kosRepository, times(2)).findById(missingId);
+    }
+
+    @Test
+    void onKosChanged_EvictsEntry() {
+        when(kosRepository.findById(kos.getId())).thenReturn(Optional.of(kos));
+        kosCache.findById(kos.getId());
+
+        kosCache.onKosChanged(KosChangedEvent.deleted(kos.getId()));
+        kosCache.findById(kos.getId());
+
+        verify(kosRepository, times(2)).findById(kos.getId());
+    }
+}
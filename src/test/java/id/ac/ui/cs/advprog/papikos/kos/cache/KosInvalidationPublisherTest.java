@@ -0,0 +1,92 @@
+package id.ac.ui.cs.advprog.papikos.kos.cache;
+
+import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosInvalidationMessage;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.net.ConnectException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KosInvalidationPublisherTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @InjectMocks
+    private KosInvalidationPublisher publisher;
+
+    @Test
+    void flush_CoalescesRepeatedChangesIntoOneMessage() {
+        UUID kosId = UUID.randomUUID();
+        UUID otherKosId = UUID.randomUUID();
+        publisher.onKosChanged(KosChangedEvent.deleted(kosId));
+        publisher.onKosChanged(KosChangedEvent.deleted(kosId));
+        publisher.onKosChanged(KosChangedEvent.deleted(otherKosId));
+
+        publisher.flush();
+
+        KosInvalidationMessage message = captureMessages(1).get(0);
+        assertEquals(publisher.getNodeId(), message.getSourceNodeId());
+        assertEquals(Set.of(kosId, otherKosId), Set.copyOf(message.getKosIds()));
+        assertEquals(2, message.getKosIds().size());
+    }
+
+    @Test
+    void flush_NothingPending_SendsNothing() {
+        publisher.flush();
+
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    @Test
+    void flush_LargeBatch_IsSplitIntoBoundedMessages() {
+        for (int i = 0; i < KosInvalidationPublisher.MAX_IDS_PER_MESSAGE + 1; i++) {
+            publisher.onKosChanged(KosChangedEvent.deleted(UUID.randomUUID()));
+        }
+
+        publisher.flush();
+
+        List<KosInvalidationMessage> messages = captureMessages(2);
+        assertEquals(Set.of(KosInvalidationPublisher.MAX_IDS_PER_MESSAGE, 1),
+                messages.stream().map(message -> message.getKosIds().size()).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void flush_PublishFails_RetriesOnNextFlush() {
+        UUID kosId = UUID.randomUUID();
+        publisher.onKosChanged(KosChangedEvent.deleted(kosId));
+        doThrow(new AmqpConnectException(new ConnectException("broker down")))
+                .doNothing()
+                .when(rabbitTemplate).convertAndSend(eq(RabbitMQConfig.KOS_INVALIDATION_EXCHANGE_NAME), eq(""), any(Object.class));
+
+        publisher.flush();
+        publisher.flush();
+
+        List<KosInvalidationMessage> messages = captureMessages(2);
+        assertEquals(List.of(kosId), messages.get(1).getKosIds());
+    }
+
+    private List<KosInvalidationMessage> captureMessages(int expected) {
+        ArgumentCaptor<KosInvalidationMessage> captor = ArgumentCaptor.forClass(KosInvalidationMessage.class);
+        verify(rabbitTemplate, times(expected))
+                .convertAndSend(eq(RabbitMQConfig.KOS_INVALIDATION_EXCHANGE_NAME), eq(""), captor.capture());
+        return captor.getAllValues();
+    }
+}
@@ -0,0 +1,96 @@
+package id.ac.ui.cs.advprog.papikos.kos.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KosResponseCacheTest {
+
+    private KosResponseCache kosResponseCache;
+    private Kos kos;
+    private AtomicInteger loads;
+    private Supplier<Kos> loader;
+
+    private final Function<Kos, ?> body = Kos::getName;
+
+    @BeforeEach
+    void setUp() {
+        kosResponseCache = new KosResponseCache(new ObjectMapper(), 1_000_000, new SimpleMeterRegistry());
+        kos = new Kos(UUID.randomUUID(), UUID.randomUUID(), "Kos Melati", "Jl. Margonda Raya No. 1",
+                "Dekat kampus", 10, new BigDecimal("1500000.00"), 2, true,
+                LocalDateTime.now().minusDays(1), LocalDateTime.now());
+        loads = new AtomicInteger();
+        loader = () -> {
+            loads.incrementAndGet();
+            return kos;
+        };
+    }
+
+    @Test
+    void get_SameVersion_EncodesOnce() {
+        KosResponseCache.EncodedResponse first = kosResponseCache.get(kos.getId(), kos.getUpdatedAt(), loader, body);
+        KosResponseCache.EncodedResponse second = kosResponseCache.get(kos.getId(), kos.getUpdatedAt(), loader, body);
+
+        assertSame(first, second);
+        assertEquals("\"Kos Melati\"", new String(first.getJson(), StandardCharsets.UTF_8));
+        assertEquals(kos.getUpdatedAt(), first.getVersion());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_NewerVersion_ReEncodes() {
+        kosResponseCache.get(kos.getId(), kos.getUpdatedAt(), loader, body);
+        kos.setName("Kos Mawar");
+        kos.setUpdatedAt(kos.getUpdatedAt().plusSeconds(1));
+
+        KosResponseCache.EncodedResponse encoded = kosResponseCache.get(kos.getId(), kos.getUpdatedAt(), loader, body);
+
+        assertEquals("\"Kos Mawar\"", new String(encoded.getJson(), StandardCharsets.UTF_8));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onKosChanged_EvictsEntry() {
+        kosResponseCache.get(kos.getId(), kos.getUpdatedAt(), loader, body);
+
+        kosResponseCache.onKosChanged(KosChangedEvent.deleted(kos.getId()));
+        kosResponseCache.get(kos.getId(), kos.getUpdatedAt(), loader, body);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getGzip_DecompressesToJsonAndIsReused() throws IOException {
+        KosResponseCache.EncodedResponse encoded = kosResponseCache.get(kos.getId(), kos.getUpdatedAt(), loader, body);
+
+        byte[] gzip = encoded.getGzip();
+
+        assertSame(gzip, encoded.getGzip());
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertArrayEquals(encoded.getJson(), gzipInputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void weight_CountsJsonAndGzipBytes() {
+        KosResponseCache.EncodedResponse encoded = kosResponseCache.get(kos.getId(), kos.getUpdatedAt(), loader, body);
+
+        assertEquals(encoded.getJson().length + encoded.getGzip().length, encoded.weight());
+    }
+}
@@ -0,0 +1,32 @@
+package id.ac.ui.cs.advprog.papikos.kos.cache;
+
+import id.ac.ui.cs.advprog.papikos.kos.event.RentalEventsProcessedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessedRentalIdCacheTest {
+
+    @Test
+    void onRentalEventsProcessed_RemembersIds() {
+        ProcessedRentalIdCache cache = new ProcessedRentalIdCache(100, new SimpleMeterRegistry());
+
+        cache.onRentalEventsProcessed(new RentalEventsProcessedEvent(List.of("rental-1", "rental-2")));
+
+        assertTrue(cache.contains("rental-1"));
+        assertTrue(cache.contains("rental-2"));
+        assertFalse(cache.contains("rental-3"));
+    }
+
+    @Test
+    void constructor_RegistersCacheMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        new ProcessedRentalIdCache(100, meterRegistry);
+
+        assertNotNull(meterRegistry.find("cache.size").tag("cache", ProcessedRentalIdCache.CACHE_NAME).gauge());
+    }
+}
@@ -1,20 +1,32 @@
 package id.ac.ui.cs.advprog.papikos.kos.config;
 
+import id.ac.ui.cs.advprog.papikos.kos.listener.RentalEventRecoverer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class RabbitMQConfigTest {
 
     private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
-            .withConfiguration(org.springframework.boot.autoconfigure.AutoConfigurations.of(RabbitAutoConfiguration.class));
+            .withConfiguration(org.springframework.boot.autoconfigure.AutoConfigurations.of(RabbitAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withUserConfiguration(RentalRetryPolicy.class, RentalEventRecoverer.class);
 
     @Test
     void rabbitMQBeansAreConfigured() {
@@ -27,12 +39,96 @@ class RabbitMQConfigTest {
 
             assertThat(context).hasSingleBean(RabbitTemplate.class);
 
-            assertThat(context).hasSingleBean(Binding.class);
+            assertThat(context.getBeansOfType(Binding.class)).hasSize(3);
             Binding kosBinding = context.getBean("kosBinding", Binding.class); // Bean name is method name by default
             assertThat(kosBinding.getExchange()).isEqualTo(RabbitMQConfig.TOPIC_EXCHANGE_NAME);
             assertThat(kosBinding.getRoutingKey()).isEqualTo(RabbitMQConfig.ROUTING_KEY_RENTAL_CREATED);
             assertThat(kosBinding.getDestination()).isEqualTo(RabbitMQConfig.KOS_QUEUE_NAME);
+
+            assertThat(context).hasSingleBean(FanoutExchange.class);
+            Queue invalidationQueue = context.getBean("kosInvalidationQueue", Queue.class);
+            assertThat(invalidationQueue).isInstanceOf(AnonymousQueue.class);
+            assertThat(invalidationQueue.isAutoDelete()).isTrue();
+            Binding invalidationBinding = context.getBean("kosInvalidationBinding", Binding.class);
+            assertThat(invalidationBinding.getExchange()).isEqualTo(RabbitMQConfig.KOS_INVALIDATION_EXCHANGE_NAME);
+            assertThat(invalidationBinding.getDestination()).isEqualTo(invalidationQueue.getName());
         });
     }
+
+    @Test
+    void kosQueue_DeadLettersThroughRetryAndDeadLetterQueues() {
+        this.contextRunner.withUserConfiguration(RabbitMQConfig.class)
+                .withPropertyValues("kos.rental.retry.max-retries=3", "kos.rental.retry.initial-interval=PT1S",
+                        "kos.rental.retry.multiplier=2")
+                .run(context -> {
+                    // Redeclaring the live queue with new arguments fails, so its dead-lettering comes from a policy
+                    Queue kosQueue = context.getBean("kosQueue", Queue.class);
+                    assertThat(kosQueue.isDurable()).isTrue();
+                    assertThat(kosQueue.getArguments()).isEmpty();
+
+                    Binding deadLetterBinding = context.getBean("kosDeadLetterBinding", Binding.class);
+                    assertThat(deadLetterBinding.getExchange()).isEqualTo(RabbitMQConfig.KOS_DEAD_LETTER_EXCHANGE_NAME);
+                    assertThat(deadLetterBinding.getDestination()).isEqualTo(RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME);
+
+                    List<Queue> retryQueues = context.getBean("kosRetryQueues", Declarables.class)
+                            .getDeclarablesByType(Queue.class);
+                    assertThat(retryQueues).extracting(Queue::getName).containsExactly(
+                            RabbitMQConfig.KOS_QUEUE_NAME + ".retry.1000ms",
+                            RabbitMQConfig.KOS_QUEUE_NAME + ".retry.2000ms",
+                            RabbitMQConfig.KOS_QUEUE_NAME + ".retry.4000ms");
+                    assertThat(retryQueues.get(1).getArguments())
+                            .containsEntry("x-message-ttl", 2000)
+                            .containsEntry("x-dead-letter-exchange", "")
+                            .containsEntry("x-dead-letter-routing-key", RabbitMQConfig.KOS_QUEUE_NAME);
+                });
+    }
+
+    @Test
+    void rentalContainerFactory_OnlyInSingleMode() {
+        this.contextRunner.withUserConfiguration(RabbitMQConfig.class)
+                .withPropertyValues("kos.rental.consumer.mode=single")
+                .run(context -> {
+                    SimpleRabbitListenerContainerFactory factory = context.getBean(
+                            RabbitMQConfig.RENTAL_CONTAINER_FACTORY, SimpleRabbitListenerContainerFactory.class);
+                    assertThat(factory.getAdviceChain()).hasSize(1);
+                });
+
+        this.contextRunner.withUserConfiguration(RabbitMQConfig.class)
+                .withPropertyValues("kos.rental.consumer.mode=batch")
+                .run(context -> assertThat(context).doesNotHaveBean(RabbitMQConfig.RENTAL_CONTAINER_FACTORY));
+    }
+
+    @Test
+    void rentalShardedContainerFactory_SingleConsumerWithConfiguredPrefetch() {
+        this.contextRunner.withUserConfiguration(RabbitMQConfig.class).run(context ->
+                assertThat(context).doesNotHaveBean(RabbitMQConfig.RENTAL_SHARDED_CONTAINER_FACTORY));
+
+        this.contextRunner.withUserConfiguration(RabbitMQConfig.class)
+                .withPropertyValues("kos.rental.consumer.mode=sharded", "kos.rental.sharded.prefetch=500")
+                .run(context -> {
+                    SimpleRabbitListenerContainerFactory factory = context.getBean(
+                            RabbitMQConfig.RENTAL_SHARDED_CONTAINER_FACTORY, SimpleRabbitListenerContainerFactory.class);
+                    assertThat(factory).extracting("concurrentConsumers").isEqualTo(1);
+                    assertThat(factory).extracting("maxConcurrentConsumers").isEqualTo(1);
+                    assertThat(factory).extracting("prefetchCount").isEqualTo(500);
+                    assertThat(factory).extracting("acknowledgeMode").isEqualTo(AcknowledgeMode.MANUAL);
+                });
+    }
+
+    @Test
+    void rentalBatchContainerFactory_OnlyInBatchMode() {
+        this.contextRunner.withUserConfiguration(RabbitMQConfig.class).run(context ->
+                assertThat(context).doesNotHaveBean(RabbitMQConfig.RENTAL_BATCH_CONTAINER_FACTORY));
+
+        this.contextRunner.withUserConfiguration(RabbitMQConfig.class)
+                .withPropertyValues("kos.rental.consumer.mode=batch", "kos.rental.batch.size=50")
+                .run(context -> {
+                    SimpleRabbitListenerContainerFactory factory = context.getBean(
+                            RabbitMQConfig.RENTAL_BATCH_CONTAINER_FACTORY, SimpleRabbitListenerContainerFactory.class);
+                    assertThat(factory.isBatchListener()).isTrue();
+                    assertThat(factory).extracting("batchSize").isEqualTo(50);
+                    assertThat(factory).extracting("acknowledgeMode").isEqualTo(AcknowledgeMode.MANUAL);
+                });
+    }
 }
 
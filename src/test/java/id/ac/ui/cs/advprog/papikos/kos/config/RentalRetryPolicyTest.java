@@ -0,0 +1,58 @@
+package id.ac.ui.cs.advprog.papikos.kos.config;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import id.ac.ui.cs.advprog.papikos.kos.exception.KosNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalRetryPolicyTest {
+
+    private final RentalRetryPolicy policy = new RentalRetryPolicy(5, Duration.ofSeconds(1), 4, Duration.ofMinutes(1));
+
+    @Test
+    void delays_GrowExponentiallyUpToTheCap() {
+        assertEquals(5, policy.getMaxRetries());
+        assertEquals(List.of(Duration.ofSeconds(1), Duration.ofSeconds(4), Duration.ofSeconds(16),
+                Duration.ofMinutes(1), Duration.ofMinutes(1)), policy.getDelays());
+    }
+
+    @Test
+    void retryQueueName_IsNamedAfterItsDelay() {
+        assertEquals(RabbitMQConfig.KOS_QUEUE_NAME + ".retry.4000ms", policy.getRetryQueueName(2));
+        assertEquals(policy.getRetryQueueName(4), policy.getRetryQueueName(5));
+    }
+
+    @Test
+    void isFatal_PoisonMessages() {
+        assertTrue(policy.isFatal(new KosNotFoundException(UUID.randomUUID())));
+        assertTrue(policy.isFatal(new IllegalArgumentException("Invalid UUID string: not-a-uuid")));
+        assertTrue(policy.isFatal(new MessageConversionException("Failed to convert message")));
+        assertTrue(policy.isFatal(new JsonParseException(null, "Unexpected character")));
+        // Wrapped by the listener container
+        assertTrue(policy.isFatal(new ListenerExecutionFailedException("Listener threw exception",
+                new KosNotFoundException(UUID.randomUUID()))));
+    }
+
+    @Test
+    void isFatal_TransientFailures_AreRetryable() {
+        assertFalse(policy.isFatal(new QueryTimeoutException("statement timeout")));
+        assertFalse(policy.isFatal(new DataIntegrityViolationException("duplicate key")));
+        assertFalse(policy.isFatal(new IllegalStateException("connection pool exhausted")));
+    }
+
+    @Test
+    void isFatal_FatalExceptionDeepInTheCauseChain_IsRetryable() {
+        // A batch-wide failure may bottom out in an exception that has nothing to do with any one message
+        assertFalse(policy.isFatal(new QueryTimeoutException("statement timeout",
+                new IllegalStateException("driver failure", new IllegalArgumentException("bad bind value")))));
+    }
+}
@@ -1,27 +1,79 @@
 package id.ac.ui.cs.advprog.papikos.kos.config;
 
+import id.ac.ui.cs.advprog.papikos.kos.security.ClientAddressResolver;
+import id.ac.ui.cs.advprog.papikos.kos.security.RejectedTokenCache;
 import id.ac.ui.cs.advprog.papikos.kos.security.TokenAuthenticationFilter;
+import id.ac.ui.cs.advprog.papikos.kos.security.TokenVerificationCache;
+import id.ac.ui.cs.advprog.papikos.kos.security.TokenVerifier;
+import id.ac.ui.cs.advprog.papikos.kos.security.VerificationRateLimiter;
+import id.ac.ui.cs.advprog.papikos.kos.security.VerificationSingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class SecurityConfigTest {
 
     private final ApplicationContextRunner contextRunner = new ApplicationContextRunner();
 
-    // Mock TokenAuthenticationFilter as it might have dependencies (like RestTemplate)
+    // Mock TokenAuthenticationFilter as it might have dependencies (like the token verifier)
     @Configuration
     static class MockTokenFilterConfiguration {
         @Bean
-        public TokenAuthenticationFilter tokenAuthenticationFilter() {
-            // Mock RestTemplate if TokenAuthenticationFilter requires it in constructor
-            return new TokenAuthenticationFilter(mock(RestTemplate.class), mock(com.fasterxml.jackson.databind.ObjectMapper.class));
+        public TokenVerifier tokenVerifier() {
+            return mock(TokenVerifier.class);
+        }
+
+        @Bean
+        public TokenAuthenticationFilter tokenAuthenticationFilter(TokenVerifier tokenVerifier) {
+            // Mock the verifier and cache TokenAuthenticationFilter requires in its constructor
+            return new TokenAuthenticationFilter(tokenVerifier, mock(TokenVerificationCache.class),
+                    new VerificationSingleFlight(new SimpleMeterRegistry()), mock(RejectedTokenCache.class),
+                    mock(VerificationRateLimiter.class), new ClientAddressResolver(List.of()));
+        }
+    }
+
+    // Stands in for the KosController routes the matchers have to tell apart
+    @RestController
+    @RequestMapping("/api/v1")
+    static class RoutesController {
+        @GetMapping("/{id}")
+        String detail(@PathVariable("id") String id) {
+            return id;
+        }
+
+        @GetMapping("/my")
+        String my() {
+            return "my";
+        }
+
+        @GetMapping("/export")
+        String export() {
+            return "export";
         }
     }
 
@@ -34,5 +86,25 @@ class SecurityConfigTest {
                     assertThat(context.getBean(SecurityFilterChain.class)).isNotNull();
                 });
     }
+
+    @Test
+    void kosDetail_IsPublicAndNeverVerifiesTheToken() {
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(WebMvcAutoConfiguration.class,
+                        HttpMessageConvertersAutoConfiguration.class))
+                .withUserConfiguration(SecurityConfig.class, MockTokenFilterConfiguration.class, RoutesController.class)
+                .run(context -> {
+                    MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+                    String kosId = UUID.randomUUID().toString();
+
+                    mockMvc.perform(get("/api/v1/" + kosId).header(HttpHeaders.AUTHORIZATION, "Bearer some-token"))
+                            .andExpect(status().isOk());
+                    verifyNoInteractions(context.getBean(TokenVerifier.class));
+
+                    mockMvc.perform(get("/api/v1/my")).andExpect(status().isUnauthorized());
+                    mockMvc.perform(get("/api/v1/export")).andExpect(status().isUnauthorized());
+                    mockMvc.perform(delete("/api/v1/" + kosId)).andExpect(status().isUnauthorized());
+                });
+    }
 }
 
@@ -1,5 +1,15 @@
 package id.ac.ui.cs.advprog.papikos.kos.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosResponseCache;
+import id.ac.ui.cs.advprog.papikos.kos.dto.CursorPage;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosBatch;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosField;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosFilter;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosListVersion;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosSummary;
+import id.ac.ui.cs.advprog.papikos.kos.dto.SlicePage;
 import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
 import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
 import id.ac.ui.cs.advprog.papikos.kos.exception.KosNotFoundException;
@@ -12,16 +22,28 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,11 +57,17 @@ class KosControllerTest {
     @Mock
     private KosService kosService;
 
+    @Spy
+    private KosResponseCache kosResponseCache =
+            new KosResponseCache(new ObjectMapper().findAndRegisterModules(), 1_000_000, new SimpleMeterRegistry());
+
     @InjectMocks
     private KosController kosController;
 
     private Kos kos;
     private Kos anotherKos;
+    private KosSummary kosSummary;
+    private KosSummary anotherKosSummary;
     private UUID kosId;
     private UUID ownerUserId;
     private UUID anotherUserId;
@@ -95,6 +123,11 @@ class KosControllerTest {
         anotherKos.setIsListed(true);
         anotherKos.setCreatedAt(LocalDateTime.of(2023, 2, 1, 10, 0, 0));
         anotherKos.setUpdatedAt(LocalDateTime.of(2023, 2, 2, 11, 0, 0));
+
+        kosSummary = new KosSummary(kosId, kos.getName(), kos.getAddress(), kos.getMonthlyRentPrice(),
+                kos.getNumRooms(), kos.getIsListed(), kos.getCreatedAt());
+        anotherKosSummary = new KosSummary(anotherKos.getId(), anotherKos.getName(), anotherKos.getAddress(),
+                anotherKos.getMonthlyRentPrice(), anotherKos.getNumRooms(), anotherKos.getIsListed(), anotherKos.getCreatedAt());
     }
 
     @Test
@@ -194,93 +227,178 @@ class KosControllerTest {
 
     @Test
     void getAllKos_Success_Returns200() {
-        List<Kos> allKosList = Arrays.asList(kos, anotherKos);
-        when(kosService.findAllKos()).thenReturn(allKosList);
+        CursorPage<KosSummary> kosPage = new CursorPage<>(Arrays.asList(kosSummary, anotherKosSummary), "next-cursor");
+        when(kosService.findKosPage(null, 20)).thenReturn(kosPage);
 
-        ResponseEntity<ApiResponse<List<Kos>>> responseEntity = kosController.getAllKos();
+        ResponseEntity<ApiResponse<CursorPage<KosSummary>>> responseEntity = kosController.getAllKos(20, null);
 
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        ApiResponse<List<Kos>> apiResponse = responseEntity.getBody();
+        ApiResponse<CursorPage<KosSummary>> apiResponse = responseEntity.getBody();
         assertNotNull(apiResponse);
         assertEquals(200, apiResponse.getStatus());
         assertEquals("Kos list fetched successfully", apiResponse.getMessage());
-        List<Kos> responseData = apiResponse.getData();
-        assertNotNull(responseData);
-        assertSame(allKosList, responseData);
-        assertEquals(2, responseData.size());
-        
-        Kos firstKosInResponse = responseData.get(0);
-        assertSame(kos, firstKosInResponse);
-        assertEquals(kos.getId(), firstKosInResponse.getId());
-        assertEquals(kos.getName(), firstKosInResponse.getName());
-        assertEquals(kos.getAddress(), firstKosInResponse.getAddress());
-        assertEquals(kos.getOwnerUserId(), firstKosInResponse.getOwnerUserId());
+        CursorPage<KosSummary> responseData = apiResponse.getData();
+        assertSame(kosPage, responseData);
+        assertEquals(2, responseData.getItems().size());
+        assertSame(kosSummary, responseData.getItems().get(0));
+        assertSame(anotherKosSummary, responseData.getItems().get(1));
+        assertEquals("next-cursor", responseData.getNextCursor());
+
+        verify(kosService, times(1)).findKosPage(null, 20);
+    }
+
+    @Test
+    void getAllKos_WithCursor_PassesCursorToService() {
+        CursorPage<KosSummary> lastPage = new CursorPage<>(Collections.singletonList(kosSummary), null);
+        when(kosService.findKosPage("cursor", 5)).thenReturn(lastPage);
+
+        ResponseEntity<ApiResponse<CursorPage<KosSummary>>> responseEntity = kosController.getAllKos(5, "cursor");
 
-        Kos secondKosInResponse = responseData.get(1);
-        assertSame(anotherKos, secondKosInResponse);
-        assertEquals(anotherKos.getId(), secondKosInResponse.getId());
-        assertEquals(anotherKos.getName(), secondKosInResponse.getName());
-        assertEquals(anotherKos.getAddress(), secondKosInResponse.getAddress());
-        assertEquals(anotherKos.getOwnerUserId(), secondKosInResponse.getOwnerUserId());
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(lastPage, responseEntity.getBody().getData());
+        assertNull(responseEntity.getBody().getData().getNextCursor());
+    }
+
+    @Test
+    void getAllKos_InvalidCursor_Returns400() {
+        when(kosService.findKosPage("garbage", 20)).thenThrow(new IllegalArgumentException("Invalid cursor."));
 
-        verify(kosService, times(1)).findAllKos();
+        ResponseEntity<ApiResponse<CursorPage<KosSummary>>> responseEntity = kosController.getAllKos(20, "garbage");
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals(400, responseEntity.getBody().getStatus());
+        assertEquals("Invalid cursor.", responseEntity.getBody().getMessage());
+    }
+
+    @Test
+    void exportKos_Plain_StreamsServiceOutput() throws Exception {
+        when(kosService.exportKos(any())).thenAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("{\"name\":\"a\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        ResponseEntity<StreamingResponseBody> responseEntity = kosController.exportKos(null);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(body);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertEquals("application/x-ndjson", responseEntity.getHeaders().getContentType().toString());
+        assertNull(responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("{\"name\":\"a\"}\n", body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportKos_AcceptsGzip_CompressesBody() throws Exception {
+        when(kosService.exportKos(any())).thenAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("{\"name\":\"a\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        ResponseEntity<StreamingResponseBody> responseEntity = kosController.exportKos("gzip, deflate");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        responseEntity.getBody().writeTo(body);
+
+        assertEquals("gzip", responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream inflated = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            assertEquals("{\"name\":\"a\"}\n", new String(inflated.readAllBytes(), StandardCharsets.UTF_8));
+        }
     }
 
     @Test
     void searchKos_WithKeyword_Success_Returns200() {
-        String keyword = "Controller Test";
-        List<Kos> searchResult = Collections.singletonList(kos);
-        when(kosService.findAllKos()).thenReturn(searchResult);
+        List<KosSummary> searchResult = Collections.singletonList(kosSummary);
+        when(kosService.searchKos("Controller Test", 20, 0)).thenReturn(searchResult);
 
-        ResponseEntity<ApiResponse<List<Kos>>> responseEntity = kosController.getAllKos();
+        ResponseEntity<ApiResponse<List<KosSummary>>> responseEntity = kosController.searchKos("Controller Test", 20, 0);
 
-        assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        ApiResponse<List<Kos>> apiResponse = responseEntity.getBody();
+        ApiResponse<List<KosSummary>> apiResponse = responseEntity.getBody();
         assertNotNull(apiResponse);
-        assertEquals(200, apiResponse.getStatus());
-        assertEquals("Kos list fetched successfully", apiResponse.getMessage());
-        List<Kos> responseData = apiResponse.getData();
-        assertNotNull(responseData);
-        assertSame(searchResult, responseData);
-        assertEquals(1, responseData.size());
-        
-        Kos actualKos = responseData.get(0);
-        assertSame(kos, actualKos);
-        assertEquals(kos.getId(), actualKos.getId());
-        assertEquals(kos.getName(), actualKos.getName());
-        assertEquals(kos.getOwnerUserId(), actualKos.getOwnerUserId());
+        assertEquals("Kos search results fetched successfully", apiResponse.getMessage());
+        assertSame(searchResult, apiResponse.getData());
+    }
 
-        verify(kosService, times(1)).findAllKos();
+    @Test
+    void searchKos_InvalidPaging_Returns400() {
+        when(kosService.searchKos("kos", 20, -1)).thenThrow(new IllegalArgumentException("Offset cannot be negative."));
+
+        ResponseEntity<ApiResponse<List<KosSummary>>> responseEntity = kosController.searchKos("kos", 20, -1);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("Offset cannot be negative.", responseEntity.getBody().getMessage());
+    }
+
+    @Test
+    void getKosBatch_Returns200WithFoundAndMissing() {
+        UUID missingId = UUID.randomUUID();
+        KosBatch batch = new KosBatch(Map.of(kosId, kos), List.of(missingId));
+        when(kosService.findKosByIds(List.of(kosId, missingId))).thenReturn(batch);
+
+        ResponseEntity<ApiResponse<KosBatch>> responseEntity = kosController.getKosBatch(List.of(kosId, missingId));
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(batch, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void getKosBatch_InvalidRequest_Returns400() {
+        when(kosService.findKosByIds(List.of())).thenThrow(new IllegalArgumentException("At least one Kos ID is required."));
+
+        ResponseEntity<ApiResponse<KosBatch>> responseEntity = kosController.getKosBatch(List.of());
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("At least one Kos ID is required.", responseEntity.getBody().getMessage());
+    }
+
+    @Test
+    void filterKos_ValidCriteria_Returns200() {
+        SlicePage<KosSummary> page = new SlicePage<>(Collections.emptyList(), 0, 20, false);
+        when(kosService.filterKos(any(KosFilter.class), eq(0), eq(20))).thenReturn(page);
+
+        ResponseEntity<ApiResponse<SlicePage<KosSummary>>> responseEntity =
+                kosController.filterKos(new BigDecimal("500000"), null, 2, "price", 0, 20);
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(page, responseEntity.getBody().getData());
+        verify(kosService).filterKos(argThat(filter -> filter.getSort() == KosFilter.Sort.PRICE
+                && filter.getMinFreeRooms() == 2 && filter.getMaxPrice() == null), eq(0), eq(20));
+    }
+
+    @Test
+    void filterKos_UnknownSort_Returns400() {
+        ResponseEntity<ApiResponse<SlicePage<KosSummary>>> responseEntity =
+                kosController.filterKos(null, null, null, "rating", 0, 20);
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        verifyNoInteractions(kosService);
     }
 
     @Test
     void getMyKos_Owner_Success_Returns200() {
-        List<Kos> myKosList = Collections.singletonList(kos);
+        List<KosSummary> myKosList = Collections.singletonList(kosSummary);
+        when(kosService.findKosListVersionByOwnerUserId(ownerUserId)).thenReturn(new KosListVersion(1, kos.getUpdatedAt()));
         when(kosService.findKosByOwnerUserId(eq(ownerUserId))).thenReturn(myKosList);
 
-        ResponseEntity<ApiResponse<List<Kos>>> responseEntity = kosController.getMyKos(ownerAuth);
+        ResponseEntity<ApiResponse<List<KosSummary>>> responseEntity = kosController.getMyKos(ownerAuth, getRequest());
 
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        ApiResponse<List<Kos>> apiResponse = responseEntity.getBody();
+        ApiResponse<List<KosSummary>> apiResponse = responseEntity.getBody();
         assertNotNull(apiResponse);
         assertEquals(200, apiResponse.getStatus());
         assertEquals("Owner's Kos list fetched successfully", apiResponse.getMessage());
-        List<Kos> responseData = apiResponse.getData();
+        List<KosSummary> responseData = apiResponse.getData();
         assertNotNull(responseData);
         assertSame(myKosList, responseData);
         assertEquals(1, responseData.size());
 
-        Kos actualKos = responseData.get(0);
-        assertSame(kos, actualKos, "Critical: kos from setUp and actualKos from response should be the same instance.");
+        KosSummary actualKos = responseData.get(0);
+        assertSame(kosSummary, actualKos, "Critical: summary from setUp and actualKos from response should be the same instance.");
         assertEquals(kos.getId(), actualKos.getId());
-        assertEquals(kos.getOwnerUserId(), actualKos.getOwnerUserId());
         assertEquals(kos.getName(), actualKos.getName());
-        assertEquals(kos.getAddress(), actualKos.getAddress());
-        assertEquals(kos.getDescription(), actualKos.getDescription());
-        assertEquals(kos.getNumRooms(), actualKos.getNumRooms());
+        assertEquals(kos.getAddress(), actualKos.getShortAddress());
+        assertEquals(kos.getNumRooms(), actualKos.getFreeRooms());
         assertEquals(0, kos.getMonthlyRentPrice().compareTo(actualKos.getMonthlyRentPrice()));
         assertEquals(kos.getIsListed(), actualKos.getIsListed());
 
@@ -292,46 +410,197 @@ class KosControllerTest {
         System.out.println("[getMyKos_Owner_Success_Returns200] LocalDateTimes .equals(): " + (expectedCreatedAt != null && expectedCreatedAt.equals(actualCreatedAt)));
 
         assertEquals(expectedCreatedAt, actualCreatedAt, "JUnit assertEquals for CreatedAt failed.");
-        assertEquals(kos.getUpdatedAt(), actualKos.getUpdatedAt());
 
         verify(kosService, times(1)).findKosByOwnerUserId(eq(ownerUserId));
     }
 
     @Test
-    void getKosById_Success_Returns200() {
+    void getKosById_Success_Returns200() throws Exception {
+        when(kosService.findKosLastModified(kosId)).thenReturn(kos.getUpdatedAt());
         when(kosService.findKosById(eq(kosId))).thenReturn(kos);
 
-        ResponseEntity<ApiResponse<Kos>> responseEntity = kosController.getKosById(kosId);
+        ResponseEntity<byte[]> responseEntity = kosController.getKosById(kosId, null, getRequest());
 
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-        ApiResponse<Kos> apiResponse = responseEntity.getBody();
-        assertNotNull(apiResponse);
-        assertEquals(200, apiResponse.getStatus());
-        assertEquals("Kos details fetched successfully", apiResponse.getMessage());
-        Kos responseData = apiResponse.getData();
+        assertNull(responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        JsonNode apiResponse = new ObjectMapper().readTree(responseEntity.getBody());
+        assertEquals(200, apiResponse.get("status").asInt());
+        assertEquals("Kos details fetched successfully", apiResponse.get("message").asText());
+        JsonNode responseData = apiResponse.get("data");
         assertNotNull(responseData);
-        assertSame(kos, responseData);
-
-        assertEquals(kos.getId(), responseData.getId());
-        assertEquals(kos.getName(), responseData.getName());
-        assertEquals(kos.getAddress(), responseData.getAddress());
-        assertEquals(kos.getDescription(), responseData.getDescription());
-        assertEquals(kos.getNumRooms(), responseData.getNumRooms());
-        assertEquals(0, kos.getMonthlyRentPrice().compareTo(responseData.getMonthlyRentPrice()));
-        assertEquals(kos.getIsListed(), responseData.getIsListed());
-        assertEquals(kos.getCreatedAt(), responseData.getCreatedAt());
-        assertEquals(kos.getUpdatedAt(), responseData.getUpdatedAt());
+
+        assertEquals(kos.getId().toString(), responseData.get("id").asText());
+        assertEquals(kos.getName(), responseData.get("name").asText());
+        assertEquals(kos.getAddress(), responseData.get("address").asText());
+        assertEquals(kos.getDescription(), responseData.get("description").asText());
+        assertEquals(kos.getNumRooms(), responseData.get("numRooms").asInt());
+        assertEquals(0, kos.getMonthlyRentPrice().compareTo(responseData.get("monthlyRentPrice").decimalValue()));
+        assertEquals(kos.getIsListed(), responseData.get("isListed").asBoolean());
 
         verify(kosService, times(1)).findKosById(eq(kosId));
+        assertNotNull(responseEntity.getHeaders().getETag());
+        assertTrue(responseEntity.getHeaders().getLastModified() > 0);
+    }
+
+    @Test
+    void getKosById_MatchingETag_Returns304WithoutLoadingKos() {
+        when(kosService.findKosLastModified(kosId)).thenReturn(kos.getUpdatedAt());
+        when(kosService.findKosById(eq(kosId))).thenReturn(kos);
+        String eTag = kosController.getKosById(kosId, null, getRequest()).getHeaders().getETag();
+
+        MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/api/v1/" + kosId);
+        conditionalRequest.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        ResponseEntity<byte[]> responseEntity = kosController.getKosById(kosId, null,
+                new ServletWebRequest(conditionalRequest, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        assertNull(responseEntity.getBody());
+        assertEquals(eTag, responseEntity.getHeaders().getETag());
+        verify(kosService, times(1)).findKosById(eq(kosId));
+    }
+
+    @Test
+    void getKosById_ChangedSinceETag_Returns200() {
+        when(kosService.findKosLastModified(kosId)).thenReturn(kos.getUpdatedAt(), kos.getUpdatedAt().plusSeconds(5));
+        when(kosService.findKosById(eq(kosId))).thenReturn(kos);
+        String eTag = kosController.getKosById(kosId, null, getRequest()).getHeaders().getETag();
+
+        MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/api/v1/" + kosId);
+        conditionalRequest.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        ResponseEntity<byte[]> responseEntity = kosController.getKosById(kosId, null,
+                new ServletWebRequest(conditionalRequest, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        verify(kosService, times(2)).findKosById(eq(kosId));
+    }
+
+    @Test
+    void getKosById_RepeatedReads_SerializeOnceAndServeGzip() throws Exception {
+        when(kosService.findKosLastModified(kosId)).thenReturn(kos.getUpdatedAt());
+        when(kosService.findKosById(eq(kosId))).thenReturn(kos);
+
+        byte[] json = kosController.getKosById(kosId, null, getRequest()).getBody();
+        ResponseEntity<byte[]> gzipped = kosController.getKosById(kosId, "gzip, deflate", getRequest());
+
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), gzipped.getHeaders().getVary());
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertArrayEquals(json, gzipInputStream.readAllBytes());
+        }
+        verify(kosService, times(1)).findKosById(eq(kosId));
+    }
+
+    @Test
+    void getKosById_GzipAndIdentityBodies_HaveDifferentETags() {
+        when(kosService.findKosLastModified(kosId)).thenReturn(kos.getUpdatedAt());
+        when(kosService.findKosById(eq(kosId))).thenReturn(kos);
+
+        String identityETag = kosController.getKosById(kosId, null, getRequest()).getHeaders().getETag();
+        String gzipETag = kosController.getKosById(kosId, "gzip", getRequest()).getHeaders().getETag();
+
+        assertNotNull(identityETag);
+        assertTrue(gzipETag.startsWith("\"") && gzipETag.endsWith("-gzip\""));
+        assertNotEquals(identityETag, gzipETag);
+    }
+
+    @Test
+    void getKosById_GzipRefusedOrOnlyByWildcard_HonoursQValues() {
+        when(kosService.findKosLastModified(kosId)).thenReturn(kos.getUpdatedAt());
+        when(kosService.findKosById(eq(kosId))).thenReturn(kos);
+
+        assertNull(kosController.getKosById(kosId, "gzip;q=0, deflate", getRequest())
+                .getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(kosController.getKosById(kosId, "*;q=1, gzip; q=0.0", getRequest())
+                .getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", kosController.getKosById(kosId, "deflate;q=1, *;q=0.5", getRequest())
+                .getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void getMyKos_NotModifiedSince_Returns304WithoutLoadingList() {
+        when(kosService.findKosListVersionByOwnerUserId(ownerUserId)).thenReturn(new KosListVersion(1, kos.getUpdatedAt()));
+
+        MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/api/v1/my");
+        conditionalRequest.addHeader(HttpHeaders.IF_MODIFIED_SINCE, System.currentTimeMillis());
+        ResponseEntity<ApiResponse<List<KosSummary>>> responseEntity = kosController.getMyKos(ownerAuth,
+                new ServletWebRequest(conditionalRequest, new MockHttpServletResponse()));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, responseEntity.getStatusCode());
+        verify(kosService, never()).findKosByOwnerUserId(any());
+    }
+
+    @Test
+    void getAllKosFields_PassesParsedFieldsToService() {
+        CursorPage<Map<String, Object>> kosPage = new CursorPage<>(List.of(Map.of("id", kosId, "name", kos.getName())), null);
+        when(kosService.findKosFieldPage(null, 20, EnumSet.of(KosField.ID, KosField.NAME))).thenReturn(kosPage);
+
+        ResponseEntity<ApiResponse<CursorPage<Map<String, Object>>>> responseEntity =
+                kosController.getAllKosFields(20, null, "name,id");
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(kosPage, responseEntity.getBody().getData());
+    }
+
+    @Test
+    void getAllKosFields_UnknownField_Returns400() {
+        ResponseEntity<ApiResponse<CursorPage<Map<String, Object>>>> responseEntity =
+                kosController.getAllKosFields(20, null, "id,secret");
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertEquals("Unknown field 'secret'.", responseEntity.getBody().getMessage());
+        verifyNoInteractions(kosService);
+    }
+
+    @Test
+    void getMyKosFields_ETagDependsOnFields() {
+        when(kosService.findKosListVersionByOwnerUserId(ownerUserId)).thenReturn(new KosListVersion(1, kos.getUpdatedAt()));
+        List<Map<String, Object>> rows = List.of(Map.of("occupiedRooms", 2));
+        when(kosService.findKosFieldsByOwnerUserId(ownerUserId, EnumSet.of(KosField.OCCUPIED_ROOMS))).thenReturn(rows);
+        when(kosService.findKosFieldsByOwnerUserId(ownerUserId, EnumSet.of(KosField.NAME))).thenReturn(List.of());
+
+        ResponseEntity<ApiResponse<List<Map<String, Object>>>> occupancy =
+                kosController.getMyKosFields("occupiedRooms", ownerAuth, getRequest());
+        ResponseEntity<ApiResponse<List<Map<String, Object>>>> names =
+                kosController.getMyKosFields("name", ownerAuth, getRequest());
+
+        assertEquals(HttpStatus.OK, occupancy.getStatusCode());
+        assertSame(rows, occupancy.getBody().getData());
+        assertNotEquals(occupancy.getHeaders().getETag(), names.getHeaders().getETag());
+        assertNotEquals(kosController.getMyKos(ownerAuth, getRequest()).getHeaders().getETag(), occupancy.getHeaders().getETag());
+    }
+
+    @Test
+    void getKosFieldsById_Success_ReturnsRequestedFieldsWithValidators() {
+        Map<String, Object> fields = Map.of("id", kosId, "monthlyRentPrice", kos.getMonthlyRentPrice());
+        when(kosService.findKosLastModified(kosId)).thenReturn(kos.getUpdatedAt());
+        when(kosService.findKosFieldsById(kosId, EnumSet.of(KosField.ID, KosField.MONTHLY_RENT_PRICE))).thenReturn(fields);
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> responseEntity =
+                kosController.getKosFieldsById(kosId, "id,monthlyRentPrice", getRequest());
+
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        assertSame(fields, responseEntity.getBody().getData());
+        assertNotNull(responseEntity.getHeaders().getETag());
+        verify(kosService, never()).findKosById(any());
+        verifyNoInteractions(kosResponseCache);
+    }
+
+    @Test
+    void getKosFieldsById_NoFields_Returns400() {
+        ResponseEntity<ApiResponse<Map<String, Object>>> responseEntity = kosController.getKosFieldsById(kosId, "", getRequest());
+
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        verifyNoInteractions(kosService);
     }
 
     @Test
     void getKosById_NotFound_ThrowsKosNotFoundException() {
-        when(kosService.findKosById(eq(nonExistentKosId))).thenThrow(new KosNotFoundException(nonExistentKosId));
-        KosNotFoundException exception = assertThrows(KosNotFoundException.class, () -> kosController.getKosById(nonExistentKosId));
+        when(kosService.findKosLastModified(eq(nonExistentKosId))).thenThrow(new KosNotFoundException(nonExistentKosId));
+        KosNotFoundException exception = assertThrows(KosNotFoundException.class,
+                () -> kosController.getKosById(nonExistentKosId, null, getRequest()));
         assertEquals("Kos with ID " + nonExistentKosId + " not found", exception.getMessage());
-        verify(kosService, times(1)).findKosById(eq(nonExistentKosId));
+        verify(kosService, never()).findKosById(any());
     }
 
     @Test
@@ -443,4 +712,8 @@ class KosControllerTest {
         assertEquals(expectedErrorMessage, exception.getMessage());
         verify(kosService, times(1)).deleteKos(eq(kosId), eq(anotherUserId));
     }
+
+    private static ServletWebRequest getRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/v1"), new MockHttpServletResponse());
+    }
 }
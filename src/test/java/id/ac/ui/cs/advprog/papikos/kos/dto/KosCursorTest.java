@@ -0,0 +1,41 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KosCursorTest {
+
+    @Test
+    void encodeThenDecode_roundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000);
+        UUID id = UUID.randomUUID();
+
+        KosCursor decoded = KosCursor.decode(new KosCursor(createdAt, id).encode());
+
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals(id, decoded.getId());
+    }
+
+    @Test
+    void encode_isUrlSafe() {
+        String encoded = new KosCursor(LocalDateTime.now(), UUID.randomUUID()).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void decode_malformedCursor_throwsIllegalArgumentException() {
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2024-05-01T10:15:30".getBytes(StandardCharsets.UTF_8));
+        String badUuid = Base64.getUrlEncoder().encodeToString("2024-05-01T10:15:30|nope".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> KosCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> KosCursor.decode(noSeparator));
+        assertThrows(IllegalArgumentException.class, () -> KosCursor.decode(badUuid));
+    }
+}
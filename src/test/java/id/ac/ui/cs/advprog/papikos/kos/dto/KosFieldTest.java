@@ -0,0 +1,38 @@
+package id.ac.ui.cs.advprog.papikos.kos.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KosFieldTest {
+
+    @Test
+    void parse_knownNames_returnsFieldsInDeclarationOrder() {
+        Set<KosField> fields = KosField.parse("monthlyRentPrice, id,name,,id");
+
+        assertEquals(List.of(KosField.ID, KosField.NAME, KosField.MONTHLY_RENT_PRICE), List.copyOf(fields));
+    }
+
+    @Test
+    void parse_unknownName_throwsIllegalArgumentException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> KosField.parse("id,ownerPassword"));
+
+        assertTrue(exception.getMessage().contains("ownerPassword"));
+    }
+
+    @Test
+    void parse_noNames_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> KosField.parse(" , "));
+        assertThrows(IllegalArgumentException.class, () -> KosField.parse(null));
+    }
+
+    @Test
+    void freeRooms_isDerived() {
+        assertNull(KosField.FREE_ROOMS.getAttribute());
+        assertEquals("isListed", KosField.IS_LISTED.getJsonName());
+    }
+}
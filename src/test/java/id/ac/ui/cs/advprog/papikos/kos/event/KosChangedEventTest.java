@@ -0,0 +1,51 @@
+package id.ac.ui.cs.advprog.papikos.kos.event;
+
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KosChangedEventTest {
+
+    @Test
+    void upserted_snapshotsSearchableText() {
+        Kos kos = new Kos();
+        kos.setId(UUID.randomUUID());
+        kos.setName("Kos Melati");
+        kos.setAddress("Jl. Margonda");
+        kos.setDescription("Dekat kampus");
+
+        KosChangedEvent event = KosChangedEvent.upserted(kos);
+        kos.setName("Changed afterwards");
+
+        assertEquals(kos.getId(), event.getKosId());
+        assertEquals(KosChangedEvent.Type.UPSERTED, event.getType());
+        assertEquals("Kos Melati", event.getName());
+        assertEquals("Jl. Margonda", event.getAddress());
+        assertEquals("Dekat kampus", event.getDescription());
+    }
+
+    @Test
+    void occupancyChanged_carriesOnlyId() {
+        UUID kosId = UUID.randomUUID();
+
+        KosChangedEvent event = KosChangedEvent.occupancyChanged(kosId);
+
+        assertEquals(kosId, event.getKosId());
+        assertEquals(KosChangedEvent.Type.OCCUPANCY_CHANGED, event.getType());
+        assertNull(event.getName());
+    }
+
+    @Test
+    void deleted_carriesOnlyId() {
+        UUID kosId = UUID.randomUUID();
+
+        KosChangedEvent event = KosChangedEvent.deleted(kosId);
+
+        assertEquals(kosId, event.getKosId());
+        assertEquals(KosChangedEvent.Type.DELETED, event.getType());
+        assertNull(event.getName());
+    }
+}
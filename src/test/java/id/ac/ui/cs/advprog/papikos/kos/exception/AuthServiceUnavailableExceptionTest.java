@@ -0,0 +1,24 @@
+package id.ac.ui.cs.advprog.papikos.kos.exception;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthServiceUnavailableExceptionTest {
+
+    @Test
+    void testConstructorWithMessage() {
+        String errorMessage = "Auth service is unreachable.";
+        AuthServiceUnavailableException exception = new AuthServiceUnavailableException(errorMessage);
+        assertEquals(errorMessage, exception.getMessage());
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    void testConstructorWithMessageAndCause() {
+        String errorMessage = "Auth service is unreachable with cause.";
+        Throwable cause = new RuntimeException("Root cause");
+        AuthServiceUnavailableException exception = new AuthServiceUnavailableException(errorMessage, cause);
+        assertEquals(errorMessage, exception.getMessage());
+        assertEquals(cause, exception.getCause());
+    }
+}
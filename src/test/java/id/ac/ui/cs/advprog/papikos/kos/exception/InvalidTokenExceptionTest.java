@@ -0,0 +1,24 @@
+package id.ac.ui.cs.advprog.papikos.kos.exception;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidTokenExceptionTest {
+
+    @Test
+    void testConstructorWithMessage() {
+        String errorMessage = "Token signature is invalid.";
+        InvalidTokenException exception = new InvalidTokenException(errorMessage);
+        assertEquals(errorMessage, exception.getMessage());
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    void testConstructorWithMessageAndCause() {
+        String errorMessage = "Token expired with cause.";
+        Throwable cause = new RuntimeException("Root cause");
+        InvalidTokenException exception = new InvalidTokenException(errorMessage, cause);
+        assertEquals(errorMessage, exception.getMessage());
+        assertEquals(cause, exception.getCause());
+    }
+}
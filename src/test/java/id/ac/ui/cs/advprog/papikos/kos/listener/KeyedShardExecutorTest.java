@@ -0,0 +1,85 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedShardExecutorTest {
+
+    @Test
+    void execute_SameKey_RunsInSubmissionOrder() throws Exception {
+        List<UUID> keys = IntStream.range(0, 20).mapToObj(i -> UUID.randomUUID()).toList();
+        Map<UUID, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(keys.size() * 100);
+
+        try (KeyedShardExecutor executor = new KeyedShardExecutor(4, "test-shard-")) {
+            for (int sequence = 0; sequence < 100; sequence++) {
+                for (UUID key : keys) {
+                    int current = sequence;
+                    executor.execute(key, () -> {
+                        seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(current);
+                        done.countDown();
+                    });
+                }
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+
+        List<Integer> expected = IntStream.range(0, 100).boxed().toList();
+        keys.forEach(key -> assertEquals(expected, seen.get(key)));
+    }
+
+    @Test
+    void execute_DifferentShards_RunInParallel() throws Exception {
+        try (KeyedShardExecutor executor = new KeyedShardExecutor(2, "test-shard-")) {
+            Object first = 0;
+            Object second = 1;
+            assertNotEquals(executor.shardOf(first), executor.shardOf(second));
+            CountDownLatch bothRunning = new CountDownLatch(2);
+            CountDownLatch done = new CountDownLatch(2);
+            Runnable waitForOther = () -> {
+                bothRunning.countDown();
+                try {
+                    if (bothRunning.await(5, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+
+            executor.execute(first, waitForOther);
+            executor.execute(second, waitForOther);
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void close_FinishesQueuedTasks() {
+        CountDownLatch done = new CountDownLatch(50);
+        KeyedShardExecutor executor = new KeyedShardExecutor(2, "test-shard-");
+        for (int i = 0; i < 50; i++) {
+            executor.execute(i, done::countDown);
+        }
+
+        executor.close();
+
+        assertEquals(0, done.getCount());
+    }
+
+    @Test
+    void constructor_NonPositiveShardCount_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyedShardExecutor(0, "test-shard-"));
+    }
+}
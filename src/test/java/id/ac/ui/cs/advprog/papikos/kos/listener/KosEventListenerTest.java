@@ -1,18 +1,26 @@
 package id.ac.ui.cs.advprog.papikos.kos.listener;
 
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
 import id.ac.ui.cs.advprog.papikos.kos.dto.RentalEvent;
 import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class KosEventListenerTest {
@@ -27,15 +35,33 @@ class KosEventListenerTest {
     void handleRentalCreatedEvent_logsAndProcessesEvent() {
         RentalEvent event = new RentalEvent();
         String kosId = UUID.randomUUID().toString();
-        // String rentalId = UUID.randomUUID().toString(); // rentalId is not used by KosEventListener
+        String rentalId = UUID.randomUUID().toString();
         event.setKosId(kosId);
-        // event.setRentalId(rentalId); // Not strictly needed for this listener's current logic
+        event.setRentalId(rentalId);
         event.setUserId(UUID.randomUUID().toString());
         event.setPrice(new BigDecimal("1200000"));
         event.setTimestamp("2024-05-20T10:00:00Z");
 
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of());
+
         kosEventListener.handleRentalCreatedEvent(event);
 
-        verify(kosService, times(1)).updateOccupiedRooms(UUID.fromString(kosId), 1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KosOccupancyChange>> changes = ArgumentCaptor.forClass(List.class);
+        verify(kosService, times(1)).applyOccupancyChanges(changes.capture());
+        KosOccupancyChange change = changes.getValue().get(0);
+        assertEquals(UUID.fromString(kosId), change.getKosId());
+        assertEquals(1, change.getDelta());
+        assertEquals(rentalId, change.getRentalId());
+    }
+
+    @Test
+    void handleRentalCreatedEvent_Rejected_Throws() {
+        RentalEvent event = new RentalEvent();
+        event.setKosId(UUID.randomUUID().toString());
+        event.setRentalId(UUID.randomUUID().toString());
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of(0));
+
+        assertThrows(IllegalArgumentException.class, () -> kosEventListener.handleRentalCreatedEvent(event));
     }
 }
@@ -0,0 +1,79 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosCache;
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosInvalidationPublisher;
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosResponseCache;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosInvalidationMessage;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import id.ac.ui.cs.advprog.papikos.kos.search.KosSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KosInvalidationListenerTest {
+
+    @Mock
+    private KosInvalidationPublisher kosInvalidationPublisher;
+
+    @Mock
+    private KosCache kosCache;
+
+    @Mock
+    private KosResponseCache kosResponseCache;
+
+    @Mock
+    private KosSearchIndex kosSearchIndex;
+
+    @Mock
+    private KosRepository kosRepository;
+
+    @InjectMocks
+    private KosInvalidationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        when(kosInvalidationPublisher.getNodeId()).thenReturn("this-node");
+    }
+
+    @Test
+    void handleInvalidation_FromOtherNode_EvictsAndRefreshesSearchIndex() {
+        Kos updated = new Kos();
+        updated.setId(UUID.randomUUID());
+        updated.setName("Kos Melati");
+        UUID deletedId = UUID.randomUUID();
+        when(kosRepository.findAllById(List.of(updated.getId(), deletedId))).thenReturn(List.of(updated));
+
+        listener.handleInvalidation(new KosInvalidationMessage("other-node", List.of(updated.getId(), deletedId)));
+
+        verify(kosCache).evict(updated.getId());
+        verify(kosCache).evict(deletedId);
+        verify(kosResponseCache).evict(updated.getId());
+        verify(kosResponseCache).evict(deletedId);
+        ArgumentCaptor<KosChangedEvent> captor = ArgumentCaptor.forClass(KosChangedEvent.class);
+        verify(kosSearchIndex, times(2)).onKosChanged(captor.capture());
+        assertEquals(KosChangedEvent.Type.UPSERTED, captor.getAllValues().get(0).getType());
+        assertEquals("Kos Melati", captor.getAllValues().get(0).getName());
+        assertEquals(KosChangedEvent.Type.DELETED, captor.getAllValues().get(1).getType());
+        assertEquals(deletedId, captor.getAllValues().get(1).getKosId());
+    }
+
+    @Test
+    void handleInvalidation_FromThisNode_IsIgnored() {
+        listener.handleInvalidation(new KosInvalidationMessage("this-node", List.of(UUID.randomUUID())));
+
+        verifyNoInteractions(kosCache, kosResponseCache, kosSearchIndex, kosRepository);
+    }
+}
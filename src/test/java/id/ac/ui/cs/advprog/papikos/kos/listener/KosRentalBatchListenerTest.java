@@ -0,0 +1,175 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
+import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KosRentalBatchListenerTest {
+
+    @Mock
+    private KosService kosService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private RentalEventRecoverer rentalEventRecoverer;
+
+    @Mock
+    private Channel channel;
+
+    @InjectMocks
+    private KosRentalBatchListener listener;
+
+    @Test
+    void handleRentalCreatedEvents_AllApplied_AcksBatchOnce() throws Exception {
+        UUID kosId = UUID.randomUUID();
+        UUID otherKosId = UUID.randomUUID();
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of());
+
+        listener.handleRentalCreatedEvents(List.of(event(1, kosId), event(2, otherKosId), event(3, kosId)), channel);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KosOccupancyChange>> changes = ArgumentCaptor.forClass(List.class);
+        verify(kosService).applyOccupancyChanges(changes.capture());
+        assertEquals(List.of(kosId, otherKosId, kosId),
+                changes.getValue().stream().map(KosOccupancyChange::getKosId).toList());
+        assertTrue(changes.getValue().stream().allMatch(change -> change.getRentalId() != null));
+        verify(channel).basicAck(3, true);
+        verifyNoInteractions(rentalEventRecoverer);
+    }
+
+    @Test
+    void handleRentalCreatedEvents_OverflowingEvent_IsRecoveredAlone() throws Exception {
+        UUID kosId = UUID.randomUUID();
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of(2));
+
+        listener.handleRentalCreatedEvents(List.of(event(4, kosId), event(5, kosId), event(6, kosId)), channel);
+
+        verify(rentalEventRecoverer).recover(argThat(message -> deliveryTag(message) == 6),
+                any(IllegalArgumentException.class));
+        verify(rentalEventRecoverer, times(1)).recover(any(), any());
+        verify(channel).basicAck(6, true);
+    }
+
+    @Test
+    void handleRentalCreatedEvents_MalformedEvent_IsRecoveredAndRestApplied() throws Exception {
+        UUID kosId = UUID.randomUUID();
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of());
+
+        listener.handleRentalCreatedEvents(List.of(raw(7, "{\"kosId\":\"not-a-uuid\"}"), raw(8, "not json"),
+                event(9, kosId)), channel);
+
+        verify(rentalEventRecoverer).recover(argThat(message -> deliveryTag(message) == 7), any(Throwable.class));
+        verify(rentalEventRecoverer).recover(argThat(message -> deliveryTag(message) == 8), any(Throwable.class));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KosOccupancyChange>> changes = ArgumentCaptor.forClass(List.class);
+        verify(kosService).applyOccupancyChanges(changes.capture());
+        assertEquals(List.of(kosId), changes.getValue().stream().map(KosOccupancyChange::getKosId).toList());
+        verify(channel).basicAck(9, true);
+    }
+
+    @Test
+    void handleRentalCreatedEvents_OnlyMalformedEvents_SkipsService() throws Exception {
+        listener.handleRentalCreatedEvents(List.of(raw(10, "{}")), channel);
+
+        verify(rentalEventRecoverer).recover(any(Message.class), any(NullPointerException.class));
+        verifyNoInteractions(kosService);
+        verify(channel).basicAck(10, true);
+    }
+
+    @Test
+    void handleRentalCreatedEvents_ServiceFails_RecoversEveryEventOfTheBatch() throws Exception {
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        when(kosService.applyOccupancyChanges(any())).thenThrow(failure);
+
+        listener.handleRentalCreatedEvents(List.of(event(11, UUID.randomUUID()), event(12, UUID.randomUUID())), channel);
+
+        verify(rentalEventRecoverer, times(2)).recover(any(Message.class), eq(failure));
+        verify(channel).basicAck(12, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void handleRentalCreatedEvents_PoisonEventFailsTheBatch_OnlyThePoisonEventIsRecovered() throws Exception {
+        UUID kosId = UUID.randomUUID();
+        UUID poisonKosId = UUID.randomUUID();
+        IllegalArgumentException poison = new IllegalArgumentException("occupied rooms out of range");
+        when(kosService.applyOccupancyChanges(any())).thenAnswer(invocation -> {
+            List<KosOccupancyChange> changes = invocation.getArgument(0);
+            if (changes.stream().anyMatch(change -> change.getKosId().equals(poisonKosId))) {
+                throw poison;
+            }
+            return Set.of();
+        });
+
+        listener.handleRentalCreatedEvents(List.of(event(13, kosId), event(14, poisonKosId), event(15, kosId)), channel);
+
+        // The failed batch, then each event on its own
+        verify(kosService, times(4)).applyOccupancyChanges(any());
+        verify(kosService, times(2)).applyOccupancyChanges(argThat(changes ->
+                changes.size() == 1 && changes.get(0).getKosId().equals(kosId)));
+        verify(rentalEventRecoverer).recover(argThat(message -> deliveryTag(message) == 14), eq(poison));
+        verify(rentalEventRecoverer, times(1)).recover(any(), any());
+        verify(channel).basicAck(15, true);
+    }
+
+    @Test
+    void handleRentalCreatedEvents_RecovererFails_RequeuesThatEventAndAcksTheRest() throws Exception {
+        UUID kosId = UUID.randomUUID();
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of(1));
+        doAnswer(invocation -> {
+            if (deliveryTag(invocation.getArgument(0)) == 17) {
+                throw new IllegalStateException("broker connection lost");
+            }
+            return null;
+        }).when(rentalEventRecoverer).recover(any(), any());
+
+        listener.handleRentalCreatedEvents(List.of(raw(16, "not json"), event(17, kosId), event(18, kosId)), channel);
+
+        verify(rentalEventRecoverer).recover(argThat(message -> deliveryTag(message) == 16), any(Throwable.class));
+        verify(channel).basicNack(17, false, true);
+        verify(channel).basicAck(16, false);
+        verify(channel).basicAck(18, false);
+        verify(channel, never()).basicAck(anyLong(), eq(true));
+    }
+
+    private static Message event(long deliveryTag, UUID kosId) {
+        return raw(deliveryTag, "{\"kosId\":\"" + kosId + "\",\"rentalId\":\"" + UUID.randomUUID() + "\"}");
+    }
+
+    private static long deliveryTag(Message message) {
+        return message.getMessageProperties().getDeliveryTag();
+    }
+
+    private static Message raw(long deliveryTag, String body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
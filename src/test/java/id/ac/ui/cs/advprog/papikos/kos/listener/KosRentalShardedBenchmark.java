@@ -0,0 +1,185 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosCache;
+import id.ac.ui.cs.advprog.papikos.kos.cache.ProcessedRentalIdCache;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import id.ac.ui.cs.advprog.papikos.kos.repository.ProcessedRentalEventRepository;
+import id.ac.ui.cs.advprog.papikos.kos.search.KosSearchIndex;
+import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
+import id.ac.ui.cs.advprog.papikos.kos.service.KosServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.web.client.RestTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures rental event throughput of the sharded consumer at 1, 2, 4 and 8 shards against PostgreSQL. Every event
+ * goes through {@link KosServiceImpl#applyOccupancyChanges} in its own transaction: the processed rental ID lookup,
+ * the conditional occupancy UPDATE and the processed event INSERT. The run also checks that every Kos saw its events
+ * in delivery order and that every booking landed. Needs Docker; run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.datasource.hikari.maximum-pool-size=16"
+})
+class KosRentalShardedBenchmark {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final int KOS_COUNT = 64;
+    private static final int EVENTS = 4_000;
+    private static final List<Integer> SHARD_COUNTS = List.of(1, 2, 4, 8);
+
+    @Autowired
+    private KosRepository kosRepository;
+
+    @Autowired
+    private ProcessedRentalEventRepository processedRentalEventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void throughput_AcrossShardCounts() throws Exception {
+        double baseline = 0;
+        for (int shards : SHARD_COUNTS) {
+            double eventsPerSecond = run(shards);
+            if (shards == 1) {
+                baseline = eventsPerSecond;
+            }
+            System.out.printf("shards=%d events=%,d throughput=%,.0f events/s (%.1fx)%n",
+                    shards, EVENTS, eventsPerSecond, eventsPerSecond / baseline);
+        }
+    }
+
+    private double run(int shards) throws Exception {
+        // Fresh Kos and rental IDs per run, so no run is skipped as a redelivery of the one before
+        List<UUID> kosIds = IntStream.range(0, KOS_COUNT).mapToObj(i -> createKos(EVENTS / KOS_COUNT + 1)).toList();
+        List<Message> messages = IntStream.range(0, EVENTS)
+                .mapToObj(i -> event(i + 1, kosIds.get(i % KOS_COUNT), shards + "-" + i))
+                .toList();
+
+        Map<UUID, Integer> lastSequence = new ConcurrentHashMap<>();
+        AtomicInteger outOfOrder = new AtomicInteger();
+        KosService kosService = transactionalKosService(invocation -> {
+            if (invocation.getMethod().getName().equals("applyOccupancyChanges")) {
+                @SuppressWarnings("unchecked")
+                KosOccupancyChange change = ((List<KosOccupancyChange>) invocation.getArguments()[0]).get(0);
+                int sequence = Integer.parseInt(change.getRentalId().substring(change.getRentalId().indexOf('-') + 1));
+                Integer previous = lastSequence.put(change.getKosId(), sequence);
+                if (previous != null && previous > sequence) {
+                    outOfOrder.incrementAndGet();
+                }
+            }
+            return invocation.proceed();
+        });
+        CountDownLatch acked = new CountDownLatch(messages.size());
+        Channel channel = mock(Channel.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            acked.countDown();
+            return null;
+        }).when(channel).basicAck(anyLong(), eq(false));
+        RentalEventRecoverer rentalEventRecoverer = mock(RentalEventRecoverer.class);
+
+        KosRentalShardedListener listener = new KosRentalShardedListener(kosService, new ObjectMapper(),
+                rentalEventRecoverer, shards);
+        try {
+            long start = System.nanoTime();
+            for (Message message : messages) {
+                listener.handleRentalCreatedEvent(message, channel);
+            }
+            assertTrue(acked.await(5, TimeUnit.MINUTES), "Not every event was acknowledged");
+            long elapsed = System.nanoTime() - start;
+            assertEquals(0, outOfOrder.get(), "Events of one Kos were applied out of order");
+            verifyNoInteractions(rentalEventRecoverer);
+            assertEquals(EVENTS, kosRepository.findAllById(kosIds).stream().mapToInt(Kos::getOccupiedRooms).sum());
+            return messages.size() / (elapsed / 1e9);
+        } finally {
+            listener.destroy();
+        }
+    }
+
+    /**
+     * The real service behind the same transaction advice the application context gives it, with the collaborators
+     * occupancy changes do not touch mocked out. {@code recorder} runs outside the transaction.
+     */
+    private KosService transactionalKosService(MethodInterceptor recorder) {
+        KosServiceImpl kosService = new KosServiceImpl(kosRepository, mock(RestTemplate.class), entityManager,
+                new ObjectMapper(), event -> { }, mock(KosSearchIndex.class), mock(KosCache.class),
+                processedRentalEventRepository, new ProcessedRentalIdCache(100_000, new SimpleMeterRegistry()));
+        ProxyFactory proxyFactory = new ProxyFactory(kosService);
+        proxyFactory.addAdvice(recorder);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        return (KosService) proxyFactory.getProxy();
+    }
+
+    private UUID createKos(int numRooms) {
+        Kos kos = new Kos();
+        kos.setOwnerUserId(UUID.randomUUID());
+        kos.setName("Kos Melati");
+        kos.setAddress("Jl. Margonda Raya");
+        kos.setNumRooms(numRooms);
+        kos.setMonthlyRentPrice(new BigDecimal("1500000.00"));
+        kos.setOccupiedRooms(0);
+        return kosRepository.save(kos).getId();
+    }
+
+    private static Message event(long deliveryTag, UUID kosId, String rentalId) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        String body = "{\"kosId\":\"" + kosId + "\",\"rentalId\":\"" + rentalId + "\"}";
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
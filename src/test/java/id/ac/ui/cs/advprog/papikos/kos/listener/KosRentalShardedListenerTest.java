@@ -0,0 +1,134 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
+import id.ac.ui.cs.advprog.papikos.kos.service.KosService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KosRentalShardedListenerTest {
+
+    @Mock
+    private KosService kosService;
+
+    @Mock
+    private RentalEventRecoverer rentalEventRecoverer;
+
+    @Mock
+    private Channel channel;
+
+    private KosRentalShardedListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new KosRentalShardedListener(kosService, new ObjectMapper(), rentalEventRecoverer, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.destroy();
+    }
+
+    @Test
+    void handleRentalCreatedEvent_Applied_AcksThatEvent() throws Exception {
+        UUID kosId = UUID.randomUUID();
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of());
+
+        listener.handleRentalCreatedEvent(event(1, kosId, "rental-1"), channel);
+
+        verify(channel, timeout(1000)).basicAck(1, false);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KosOccupancyChange>> changes = ArgumentCaptor.forClass(List.class);
+        verify(kosService).applyOccupancyChanges(changes.capture());
+        assertEquals(kosId, changes.getValue().get(0).getKosId());
+        assertEquals("rental-1", changes.getValue().get(0).getRentalId());
+        verifyNoInteractions(rentalEventRecoverer);
+    }
+
+    @Test
+    void handleRentalCreatedEvent_SameKos_AppliedInDeliveryOrder() throws Exception {
+        UUID kosId = UUID.randomUUID();
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of());
+
+        for (int i = 1; i <= 20; i++) {
+            listener.handleRentalCreatedEvent(event(i, kosId, "rental-" + i), channel);
+        }
+
+        verify(channel, timeout(1000).times(20)).basicAck(anyLong(), eq(false));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KosOccupancyChange>> changes = ArgumentCaptor.forClass(List.class);
+        verify(kosService, times(20)).applyOccupancyChanges(changes.capture());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("rental-" + (i + 1), changes.getAllValues().get(i).get(0).getRentalId());
+        }
+    }
+
+    @Test
+    void handleRentalCreatedEvent_Rejected_IsRecoveredThenAcked() throws Exception {
+        when(kosService.applyOccupancyChanges(any())).thenReturn(Set.of(0));
+
+        listener.handleRentalCreatedEvent(event(2, UUID.randomUUID(), "rental-2"), channel);
+
+        verify(channel, timeout(1000)).basicAck(2, false);
+        verify(rentalEventRecoverer).recover(any(Message.class), any(IllegalArgumentException.class));
+    }
+
+    @Test
+    void handleRentalCreatedEvent_ServiceFails_IsRecoveredThenAcked() throws Exception {
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        when(kosService.applyOccupancyChanges(any())).thenThrow(failure);
+
+        listener.handleRentalCreatedEvent(event(3, UUID.randomUUID(), "rental-3"), channel);
+
+        verify(channel, timeout(1000)).basicAck(3, false);
+        verify(rentalEventRecoverer).recover(any(Message.class), eq(failure));
+    }
+
+    @Test
+    void handleRentalCreatedEvent_RecoveryFails_Requeues() throws Exception {
+        when(kosService.applyOccupancyChanges(any())).thenThrow(new IllegalStateException("database unavailable"));
+        doThrow(new IllegalStateException("broker unavailable")).when(rentalEventRecoverer).recover(any(), any());
+
+        listener.handleRentalCreatedEvent(event(4, UUID.randomUUID(), "rental-4"), channel);
+
+        verify(channel, timeout(1000)).basicNack(4, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void handleRentalCreatedEvent_Malformed_IsRecoveredWithoutService() throws Exception {
+        listener.handleRentalCreatedEvent(raw(5, "{\"kosId\":\"not-a-uuid\"}"), channel);
+
+        verify(rentalEventRecoverer).recover(any(Message.class), any(IllegalArgumentException.class));
+        verify(channel).basicAck(5, false);
+        verifyNoInteractions(kosService);
+    }
+
+    private static Message event(long deliveryTag, UUID kosId, String rentalId) {
+        return raw(deliveryTag, "{\"kosId\":\"" + kosId + "\",\"rentalId\":\"" + rentalId + "\"}");
+    }
+
+    private static Message raw(long deliveryTag, String body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
@@ -0,0 +1,92 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RentalDeadLetterEndpointTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private Channel channel;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RentalDeadLetterEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        endpoint = new RentalDeadLetterEndpoint(rabbitTemplate, meterRegistry);
+        when(rabbitTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<ChannelCallback<?>>getArgument(0).doExecute(channel));
+    }
+
+    @Test
+    void replay_MovesEventsBackWithoutFailureHeaders() throws Exception {
+        when(channel.basicGet(RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME, false))
+                .thenReturn(deadLetter(1), deadLetter(2), null);
+
+        Map<String, Object> result = endpoint.replay(null);
+
+        assertEquals(2, result.get("replayed"));
+        ArgumentCaptor<AMQP.BasicProperties> properties = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        verify(channel, times(2)).basicPublish(eq(""), eq(RabbitMQConfig.KOS_QUEUE_NAME), properties.capture(), any());
+        Map<String, Object> headers = properties.getValue().getHeaders();
+        assertFalse(headers.containsKey(RentalEventRecoverer.RETRY_COUNT_HEADER));
+        assertFalse(headers.containsKey(RentalEventRecoverer.EXCEPTION_CLASS_HEADER));
+        assertEquals("kept", headers.get("x-other"));
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+        assertEquals(2.0, meterRegistry.get("kos.rental.events.replayed").counter().count());
+    }
+
+    @Test
+    void replay_StopsAtLimit() throws Exception {
+        when(channel.basicGet(RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME, false)).thenReturn(deadLetter(1));
+
+        Map<String, Object> result = endpoint.replay(1);
+
+        assertEquals(1, result.get("replayed"));
+        verify(channel, times(1)).basicGet(RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME, false);
+    }
+
+    @Test
+    void deadLetters_ReportsQueueDepth() throws Exception {
+        when(channel.messageCount(RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME)).thenReturn(3L);
+
+        assertEquals(3L, endpoint.deadLetters().get("messages"));
+    }
+
+    private static GetResponse deadLetter(long deliveryTag) {
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .headers(Map.of(RentalEventRecoverer.RETRY_COUNT_HEADER, 4,
+                        RentalEventRecoverer.EXCEPTION_CLASS_HEADER, "java.lang.IllegalStateException",
+                        "x-other", "kept"))
+                .build();
+        return new GetResponse(new Envelope(deliveryTag, false, RabbitMQConfig.KOS_DEAD_LETTER_EXCHANGE_NAME,
+                RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME), properties, "{}".getBytes(StandardCharsets.UTF_8), 0);
+    }
+}
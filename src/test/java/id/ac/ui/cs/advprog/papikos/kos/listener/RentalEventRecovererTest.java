@@ -0,0 +1,101 @@
+package id.ac.ui.cs.advprog.papikos.kos.listener;
+
+import id.ac.ui.cs.advprog.papikos.kos.config.RabbitMQConfig;
+import id.ac.ui.cs.advprog.papikos.kos.config.RentalRetryPolicy;
+import id.ac.ui.cs.advprog.papikos.kos.exception.KosNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RentalEventRecovererTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RentalEventRecoverer recoverer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        RentalRetryPolicy policy = new RentalRetryPolicy(2, Duration.ofSeconds(1), 4, Duration.ofMinutes(1));
+        recoverer = new RentalEventRecoverer(rabbitTemplate, policy, meterRegistry);
+    }
+
+    @Test
+    void recover_RetryableFailure_RepublishesToNextRetryQueue() {
+        recoverer.recover(message(null), new QueryTimeoutException("statement timeout"));
+
+        Message sent = sentTo("", RentalRetryPolicy.retryQueueName(Duration.ofSeconds(1)));
+        assertEquals(1, sent.getMessageProperties().getHeaders().get(RentalEventRecoverer.RETRY_COUNT_HEADER));
+        assertEquals(MessageDeliveryMode.PERSISTENT, sent.getMessageProperties().getDeliveryMode());
+        assertEquals("{}", new String(sent.getBody(), StandardCharsets.UTF_8));
+        assertEquals(1.0, meterRegistry.get("kos.rental.events.retried").counter().count());
+    }
+
+    @Test
+    void recover_SecondFailure_UsesLongerDelay() {
+        recoverer.recover(message(1), new QueryTimeoutException("statement timeout"));
+
+        Message sent = sentTo("", RentalRetryPolicy.retryQueueName(Duration.ofSeconds(4)));
+        assertEquals(2, sent.getMessageProperties().getHeaders().get(RentalEventRecoverer.RETRY_COUNT_HEADER));
+    }
+
+    @Test
+    void recover_FatalFailure_DeadLettersImmediately() {
+        UUID kosId = UUID.randomUUID();
+        recoverer.recover(message(null), new ListenerExecutionFailedException("Listener threw exception",
+                new KosNotFoundException(kosId)));
+
+        Message sent = sentTo(RabbitMQConfig.KOS_DEAD_LETTER_EXCHANGE_NAME, RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME);
+        assertEquals(KosNotFoundException.class.getName(),
+                sent.getMessageProperties().getHeaders().get(RentalEventRecoverer.EXCEPTION_CLASS_HEADER));
+        assertEquals("Kos with ID " + kosId + " not found",
+                sent.getMessageProperties().getHeaders().get(RentalEventRecoverer.EXCEPTION_MESSAGE_HEADER));
+        assertEquals(1.0, meterRegistry.get("kos.rental.events.dead.lettered").tag("reason", "fatal").counter().count());
+    }
+
+    @Test
+    void recover_OutOfRetries_DeadLetters() {
+        recoverer.recover(message(2), new QueryTimeoutException("statement timeout"));
+
+        sentTo(RabbitMQConfig.KOS_DEAD_LETTER_EXCHANGE_NAME, RabbitMQConfig.KOS_DEAD_LETTER_QUEUE_NAME);
+        assertEquals(1.0, meterRegistry.get("kos.rental.events.dead.lettered").tag("reason", "exhausted").counter().count());
+        assertEquals(0.0, meterRegistry.get("kos.rental.events.retried").counter().count());
+    }
+
+    private Message sentTo(String exchange, String routingKey) {
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(exchange), eq(routingKey), sent.capture());
+        return sent.getValue();
+    }
+
+    private static Message message(Integer retries) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryMode(null);
+        if (retries != null) {
+            properties.setHeader(RentalEventRecoverer.RETRY_COUNT_HEADER, retries);
+        }
+        return new Message("{}".getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
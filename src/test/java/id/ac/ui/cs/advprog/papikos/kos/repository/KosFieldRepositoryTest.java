@@ -0,0 +1,92 @@
+package id.ac.ui.cs.advprog.papikos.kos.repository;
+
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosCursor;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosField;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class KosFieldRepositoryTest {
+
+    @Autowired
+    private KosRepository kosRepository;
+
+    private UUID ownerUserId;
+    private Kos first;
+    private Kos second;
+
+    @BeforeEach
+    void setUp() {
+        ownerUserId = UUID.randomUUID();
+        first = kosRepository.saveAndFlush(kos("Kos Melati", 10, 3));
+        second = kosRepository.saveAndFlush(kos("Kos Mawar", 4, 4));
+    }
+
+    @Test
+    void findFieldsById_SelectsOnlyRequestedFieldsInOrder() {
+        Map<String, Object> row = kosRepository.findFieldsById(
+                EnumSet.of(KosField.NAME, KosField.ID, KosField.FREE_ROOMS), first.getId()).orElseThrow();
+
+        assertEquals(List.of("id", "name", "freeRooms"), List.copyOf(row.keySet()));
+        assertEquals(first.getId(), row.get("id"));
+        assertEquals("Kos Melati", row.get("name"));
+        assertEquals(7, ((Number) row.get("freeRooms")).intValue());
+    }
+
+    @Test
+    void findFieldsById_UnknownId_IsEmpty() {
+        assertTrue(kosRepository.findFieldsById(EnumSet.of(KosField.ID), UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void findFieldsByOwnerUserId_ReturnsOnlyOwnersKos() {
+        Kos otherOwnersKos = kos("Kos Lain", 5, 0);
+        otherOwnersKos.setOwnerUserId(UUID.randomUUID());
+        kosRepository.saveAndFlush(otherOwnersKos);
+
+        List<Map<String, Object>> rows = kosRepository.findFieldsByOwnerUserId(
+                EnumSet.of(KosField.NAME, KosField.OCCUPIED_ROOMS), ownerUserId);
+
+        assertEquals(Set.of(Map.of("name", "Kos Melati", "occupiedRooms", 3),
+                Map.of("name", "Kos Mawar", "occupiedRooms", 4)), Set.copyOf(rows));
+    }
+
+    @Test
+    void findFieldPage_PagesByCreationTimeAndId() {
+        Set<KosField> fields = EnumSet.of(KosField.ID, KosField.CREATED_AT);
+
+        List<Map<String, Object>> firstPage = kosRepository.findFieldPage(fields, null, 1);
+        Map<String, Object> last = firstPage.get(0);
+        KosCursor cursor = new KosCursor((LocalDateTime) last.get("createdAt"), (UUID) last.get("id"));
+        List<Map<String, Object>> secondPage = kosRepository.findFieldPage(fields, cursor, 10);
+
+        assertEquals(1, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertEquals(Set.of(first.getId(), second.getId()), Set.of(last.get("id"), secondPage.get(0).get("id")));
+    }
+
+    private Kos kos(String name, int numRooms, int occupiedRooms) {
+        Kos kos = new Kos();
+        kos.setOwnerUserId(ownerUserId);
+        kos.setName(name);
+        kos.setAddress("Jl. Margonda Raya");
+        kos.setDescription("Dekat kampus");
+        kos.setNumRooms(numRooms);
+        kos.setMonthlyRentPrice(new BigDecimal("1500000.00"));
+        kos.setOccupiedRooms(occupiedRooms);
+        return kos;
+    }
+}
@@ -0,0 +1,140 @@
+package id.ac.ui.cs.advprog.papikos.kos.repository;
+
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers one Kos with concurrent occupancy changes, each in its own transaction, against PostgreSQL row locking.
+ * Skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.datasource.hikari.maximum-pool-size=16"
+})
+class KosOccupancyConcurrencyTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final int THREADS = 16;
+    private static final int CHANGES_PER_THREAD = 50;
+
+    @Autowired
+    private KosRepository kosRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clearTable() {
+        kosRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentIncrements_AreNeitherLostNorOverbooked() throws Exception {
+        int numRooms = 100;
+        UUID kosId = createKos(numRooms, 0);
+
+        int applied = runConcurrently(kosId, thread -> 1);
+
+        // Far more bookings were attempted than there are rooms; exactly the rooms were filled
+        assertEquals(numRooms, applied);
+        assertEquals(numRooms, occupiedRooms(kosId));
+    }
+
+    @Test
+    void concurrentIncrementsAndDecrements_AllApply() throws Exception {
+        int numRooms = THREADS * CHANGES_PER_THREAD;
+        int initial = numRooms / 2;
+        UUID kosId = createKos(numRooms, initial);
+
+        // Half the threads book and half vacate; neither bound can be reached, so every change must apply
+        int applied = runConcurrently(kosId, thread -> thread % 2 == 0 ? 1 : -1);
+
+        assertEquals(THREADS * CHANGES_PER_THREAD, applied);
+        assertEquals(initial, occupiedRooms(kosId));
+    }
+
+    /**
+     * Runs {@link #CHANGES_PER_THREAD} single-change transactions on each of {@link #THREADS} threads, all released
+     * at once, and returns how many of the changes were applied.
+     */
+    private int runConcurrently(UUID kosId, IntUnaryOperator deltaPerThread) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int delta = deltaPerThread.applyAsInt(thread);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int applied = 0;
+                    for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                        applied += transaction.execute(status ->
+                                kosRepository.addOccupiedRooms(kosId, delta, LocalDateTime.now()));
+                    }
+                    return applied;
+                }));
+            }
+            start.countDown();
+            int applied = 0;
+            for (Future<Integer> result : results) {
+                applied += result.get(60, TimeUnit.SECONDS);
+            }
+            return applied;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private UUID createKos(int numRooms, int occupiedRooms) {
+        Kos kos = new Kos();
+        kos.setOwnerUserId(UUID.randomUUID());
+        kos.setName("Kos Melati");
+        kos.setAddress("Jl. Margonda Raya");
+        kos.setNumRooms(numRooms);
+        kos.setMonthlyRentPrice(new BigDecimal("1500000.00"));
+        kos.setOccupiedRooms(occupiedRooms);
+        return kosRepository.save(kos).getId();
+    }
+
+    private int occupiedRooms(UUID kosId) {
+        return kosRepository.findById(kosId).orElseThrow().getOccupiedRooms();
+    }
+}
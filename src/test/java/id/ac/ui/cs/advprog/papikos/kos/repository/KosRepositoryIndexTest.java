@@ -0,0 +1,145 @@
+package id.ac.ui.cs.advprog.papikos.kos.repository;
+
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosListVersion;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Flyway migrations against PostgreSQL, validates them against the entity mapping, and checks that the
+ * repository's query shapes are planned onto the intended indexes. Skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.datasource.driver-class-name=org.postgresql.Driver"
+})
+class KosRepositoryIndexTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final int ROWS = 20_000;
+    private static final int OWNERS = 2_000;
+
+    @Autowired
+    private KosRepository kosRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void loadRows() {
+        if (kosRepository.count() > 0) {
+            return;
+        }
+        // Ten Kos per owner, half of them listed, prices and free rooms spread evenly
+        jdbcTemplate.update("INSERT INTO kos (id, owner_user_id, name, address, description, num_rooms, " +
+                "monthly_rent_price, occupied_rooms, is_listed, created_at, updated_at) " +
+                "SELECT gen_random_uuid(), md5('owner' || (i % ?))::uuid, 'Kos ' || i, 'Jl. Margonda Raya No. ' || i, " +
+                "'Kamar nyaman', 10, 500000 + (i % 100) * 25000, i % 10, i % 2 = 0, " +
+                "now() - i * interval '1 minute', now() - i * interval '1 minute' " +
+                "FROM generate_series(1, ?) AS s(i)", OWNERS, ROWS);
+        jdbcTemplate.execute("ANALYZE kos");
+    }
+
+    @Test
+    void migrations_CreateTheIndexSet() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'kos'", String.class);
+
+        assertTrue(indexes.containsAll(List.of(
+                "idx_kos_created_at_id",
+                "idx_kos_owner_user_id",
+                "idx_kos_listed_price_composite",
+                "idx_kos_listed_newest",
+                "idx_kos_listed_free_rooms",
+                "idx_kos_search_vector",
+                "idx_kos_name_trgm",
+                "idx_kos_address_trgm")), "Missing indexes in " + indexes);
+        assertFalse(indexes.contains("idx_kos_listed_price"), "The composite index replaces the partial price index");
+    }
+
+    @Test
+    void ownerQueries_UseOwnerIndex() {
+        UUID ownerUserId = firstOwner();
+
+        List<KosSummary> summaries = kosRepository.findSummariesByOwnerUserId(ownerUserId);
+        assertEquals(ROWS / OWNERS, summaries.size());
+        assertTrue(summaries.stream().allMatch(summary -> summary.getFreeRooms() != null));
+        KosListVersion version = kosRepository.findListVersionByOwnerUserId(ownerUserId);
+        assertEquals(ROWS / OWNERS, version.getCount());
+        assertNotNull(version.getLastUpdatedAt());
+
+        assertPlanUses("idx_kos_owner_user_id",
+                "SELECT id, name, monthly_rent_price FROM kos WHERE owner_user_id = ? ORDER BY created_at, id", ownerUserId);
+        assertPlanUses("idx_kos_owner_user_id",
+                "SELECT count(*), max(updated_at) FROM kos WHERE owner_user_id = ?", ownerUserId);
+    }
+
+    @Test
+    void filterQueries_UseListingIndexes() {
+        Slice<KosSummary> cheapest = kosRepository.filterListedSummaries(BigDecimal.ZERO, new BigDecimal("99999999.99"), 0,
+                PageRequest.of(0, 20, Sort.by(Sort.Order.asc("monthlyRentPrice"), Sort.Order.asc("id"))));
+        assertEquals(20, cheapest.getNumberOfElements());
+        assertTrue(cheapest.hasNext());
+        assertTrue(cheapest.getContent().stream().allMatch(KosSummary::getIsListed));
+
+        // The SQL Hibernate generates for filterListedSummaries with each sort
+        String filter = "SELECT id, name, monthly_rent_price FROM kos WHERE is_listed = true " +
+                "AND monthly_rent_price BETWEEN ? AND ? AND num_rooms - occupied_rooms >= ? ";
+        assertPlanUses("idx_kos_listed_price_composite",
+                filter + "ORDER BY monthly_rent_price, id LIMIT 21", BigDecimal.ZERO, new BigDecimal("99999999.99"), 0);
+        assertPlanUses("idx_kos_listed_newest",
+                filter + "ORDER BY created_at DESC, id DESC LIMIT 21", BigDecimal.ZERO, new BigDecimal("99999999.99"), 0);
+    }
+
+    @Test
+    void summaryKeysetPages_FollowOnFromEachOther() {
+        List<KosSummary> first = kosRepository.findFirstSummaryPage(Limit.of(50));
+        KosSummary last = first.get(first.size() - 1);
+        List<KosSummary> second = kosRepository.findSummaryPageAfter(last.getCreatedAt(), last.getId(), Limit.of(50));
+
+        assertEquals(50, second.size());
+        assertTrue(second.get(0).getCreatedAt().isAfter(last.getCreatedAt())
+                || second.get(0).getCreatedAt().isEqual(last.getCreatedAt()));
+        assertTrue(first.stream().noneMatch(summary -> summary.getId().equals(second.get(0).getId())));
+        assertEquals(first.get(0).getId(), kosRepository.findSummariesByIdIn(List.of(first.get(0).getId())).get(0).getId());
+    }
+
+    private UUID firstOwner() {
+        return jdbcTemplate.queryForObject("SELECT md5('owner' || 1)::uuid", UUID.class);
+    }
+
+    private void assertPlanUses(String index, String sql, Object... args) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+        assertTrue(plan.contains(index), "Expected " + index + " in plan:\n" + plan);
+    }
+}
@@ -0,0 +1,117 @@
+package id.ac.ui.cs.advprog.papikos.kos.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the trigram infix search path with the LIKE scan it replaces.
+ * Needs Docker; run with {@code ./gradlew benchmark} (optionally {@code -Pbenchmark.rows=100000,1000000}).
+ */
+@Tag("benchmark")
+@Testcontainers
+class KosSearchBenchmark {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    // The query behind the former findKosByNameContainingIgnoreCaseOrAddressContainingIgnoreCaseOrDescriptionContainingIgnoreCase
+    private static final String LIKE_SEARCH_SQL = "SELECT k.* FROM kos k " +
+            "WHERE lower(k.name) LIKE lower('%' || :keyword || '%') " +
+            "OR lower(k.address) LIKE lower('%' || :keyword || '%') " +
+            "OR lower(k.description) LIKE lower('%' || :keyword || '%')";
+
+    private static final List<String> KEYWORDS = List.of("margonda", "jl. kukel");
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 15;
+
+    private static JdbcTemplate jdbcTemplate;
+    private static NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @BeforeAll
+    static void createSchema() {
+        // A single connection, so the session level similarity threshold applies to every query
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.execute("SET pg_trgm.word_similarity_threshold = 0.5");
+    }
+
+    @Test
+    void trigramSearch_versusLikeScan() {
+        int loaded = 0;
+        for (int rows : rowCounts()) {
+            insertRows(loaded + 1, rows);
+            loaded = rows;
+            jdbcTemplate.execute("VACUUM ANALYZE kos");
+
+            for (String keyword : KEYWORDS) {
+                MapSqlParameterSource params = new MapSqlParameterSource()
+                        .addValue("keyword", keyword)
+                        .addValue("limit", 20)
+                        .addValue("offset", 0);
+                double likeMillis = medianMillis(() -> namedJdbcTemplate.queryForList(LIKE_SEARCH_SQL, params));
+                double trigramMillis = medianMillis(() -> namedJdbcTemplate.queryForList(KosRepository.TRIGRAM_SEARCH_SQL, params));
+                int matches = namedJdbcTemplate.queryForList(KosRepository.TRIGRAM_SEARCH_SQL, params).size();
+                System.out.printf("rows=%,d keyword='%s' like=%.2f ms trigram=%.2f ms (%d results)%n",
+                        rows, keyword, likeMillis, trigramMillis, matches);
+
+                String plan = String.join("\n", namedJdbcTemplate.queryForList(
+                        "EXPLAIN " + KosRepository.TRIGRAM_SEARCH_SQL, params, String.class));
+                assertTrue(plan.contains("_trgm"), "Trigram search should use a trigram index:\n" + plan);
+            }
+        }
+    }
+
+    private static void insertRows(int from, int to) {
+        // Roughly one row in a thousand sits on each searched street; the rest get distinct street names
+        jdbcTemplate.update("INSERT INTO kos (id, owner_user_id, name, address, description, num_rooms, " +
+                "monthly_rent_price, occupied_rooms, is_listed, created_at, updated_at) " +
+                "SELECT gen_random_uuid(), gen_random_uuid(), " +
+                "(ARRAY['Kos Melati', 'Kos Mawar', 'Kos Anggrek', 'Kos Kenanga', 'Kos Dahlia'])[1 + i % 5] || ' ' || i, " +
+                "CASE WHEN i % 1000 = 0 THEN 'Jl. Margonda Raya No. ' || (i % 300) " +
+                "WHEN i % 1000 = 1 THEN 'Jl. Kukel No. ' || (i % 300) " +
+                "ELSE 'Jl. ' || substr(md5(i::text), 1, 8) || ' No. ' || (i % 300) END, " +
+                "'Kamar nyaman dekat kampus, nomor ' || i, 10, 1500000, 0, true, now(), now() " +
+                "FROM generate_series(?, ?) AS s(i)", from, to);
+    }
+
+    private static double medianMillis(Runnable query) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            query.run();
+        }
+        double[] samples = new double[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            query.run();
+            samples[i] = (System.nanoTime() - start) / 1_000_000d;
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_RUNS / 2];
+    }
+
+    private static int[] rowCounts() {
+        return Arrays.stream(System.getProperty("benchmark.rows", "100000,1000000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .sorted()
+                .toArray();
+    }
+}
@@ -0,0 +1,53 @@
+package id.ac.ui.cs.advprog.papikos.kos.repository;
+
+import id.ac.ui.cs.advprog.papikos.kos.model.ProcessedRentalEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ProcessedRentalEventRepositoryTest {
+
+    @Autowired
+    private ProcessedRentalEventRepository processedRentalEventRepository;
+
+    @Test
+    void findProcessedRentalIds_ReturnsOnlyRecordedIds() {
+        processedRentalEventRepository.saveAndFlush(record("rental-1", LocalDateTime.now()));
+
+        assertEquals(List.of("rental-1"),
+                processedRentalEventRepository.findProcessedRentalIds(List.of("rental-1", "rental-2")));
+    }
+
+    @Test
+    void save_SameRentalIdTwice_FailsInsteadOfOverwriting() {
+        processedRentalEventRepository.saveAndFlush(record("rental-1", LocalDateTime.now()));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> processedRentalEventRepository.saveAndFlush(record("rental-1", LocalDateTime.now())));
+    }
+
+    @Test
+    void deleteProcessedBefore_DeletesOnlyOldRowsUpToLimit() {
+        LocalDateTime now = LocalDateTime.now();
+        processedRentalEventRepository.saveAllAndFlush(List.of(record("old-1", now.minusDays(10)),
+                record("old-2", now.minusDays(9)), record("old-3", now.minusDays(8)), record("recent", now)));
+
+        assertEquals(2, processedRentalEventRepository.deleteProcessedBefore(now.minusDays(7), 2));
+        assertEquals(1, processedRentalEventRepository.deleteProcessedBefore(now.minusDays(7), 2));
+        assertEquals(0, processedRentalEventRepository.deleteProcessedBefore(now.minusDays(7), 2));
+        assertEquals(List.of("recent"), processedRentalEventRepository.findAll().stream()
+                .map(ProcessedRentalEvent::getRentalId).toList());
+    }
+
+    private static ProcessedRentalEvent record(String rentalId, LocalDateTime processedAt) {
+        return new ProcessedRentalEvent(rentalId, UUID.randomUUID(), processedAt);
+    }
+}
@@ -0,0 +1,175 @@
+package id.ac.ui.cs.advprog.papikos.kos.search;
+
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class KosSearchIndexTest {
+
+    private KosRepository kosRepository;
+    private EntityManager entityManager;
+    private SimpleMeterRegistry meterRegistry;
+    private KosSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        kosRepository = mock(KosRepository.class);
+        entityManager = mock(EntityManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        index = new KosSearchIndex(kosRepository, entityManager, mock(PlatformTransactionManager.class), true, meterRegistry);
+    }
+
+    @Test
+    void build_indexesAllRowsAndBecomesReady() {
+        Kos first = kos("Kos Melati", "Jl. Margonda", "Dekat kampus UI");
+        Kos second = kos("Asrama Mawar", "Jl. Kober", "Murah dan nyaman");
+        when(kosRepository.streamAllBy()).thenReturn(Stream.of(first, second));
+
+        assertFalse(index.isReady());
+        index.build();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(first.getId()), index.search("melati", 10, 0));
+        assertEquals(List.of(second.getId()), index.search("murah", 10, 0));
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+        assertEquals(1.0, meterRegistry.get("kos.search.index.ready").gauge().value());
+        assertEquals(2.0, meterRegistry.get("kos.search.index.documents").gauge().value());
+        assertTrue(meterRegistry.get("kos.search.index.memory").gauge().value() > 0);
+    }
+
+    @Test
+    void build_failure_staysNotReady() {
+        when(kosRepository.streamAllBy()).thenThrow(new IllegalStateException("database down"));
+
+        index.build();
+
+        assertFalse(index.isReady());
+    }
+
+    @Test
+    void search_multipleTerms_requiresAllTerms() {
+        UUID both = upsert("Kos Dekat Kampus", "Depok", null);
+        upsert("Kos Jauh", "Depok", null);
+
+        assertEquals(List.of(both), index.search("kos kampus", 10, 0));
+        assertEquals(List.of(), index.search("kos bogor", 10, 0));
+    }
+
+    @Test
+    void search_orGroups_matchEitherGroup() {
+        UUID melati = upsert("Kos Melati", "Depok", null);
+        UUID mawar = upsert("Kos Mawar", "Depok", null);
+        upsert("Kos Anggrek", "Depok", null);
+
+        List<UUID> results = index.search("melati OR mawar", 10, 0);
+
+        assertEquals(2, results.size());
+        assertTrue(results.containsAll(List.of(melati, mawar)));
+    }
+
+    @Test
+    void search_ranksNameAboveAddressAboveDescription() {
+        UUID inDescription = upsert("Kos A", "Jl. Satu", "Dekat margonda");
+        UUID inName = upsert("Kos Margonda", "Jl. Dua", null);
+        UUID inAddress = upsert("Kos B", "Jl. Margonda Raya", null);
+
+        assertEquals(List.of(inName, inAddress, inDescription), index.search("Margonda", 10, 0));
+    }
+
+    @Test
+    void search_appliesLimitAndOffset() {
+        UUID first = upsert("Kos Satu", null, null);
+        UUID second = upsert("Kos Dua", null, null);
+        UUID third = upsert("Kos Tiga", null, null);
+
+        assertEquals(List.of(first, second), index.search("kos", 2, 0));
+        assertEquals(List.of(third), index.search("kos", 2, 2));
+        assertEquals(List.of(), index.search("kos", 2, 10));
+    }
+
+    @Test
+    void onKosChanged_update_replacesOldTerms() {
+        UUID kosId = upsert("Kos Lama", null, null);
+
+        index.onKosChanged(new KosChangedEvent(kosId, KosChangedEvent.Type.UPSERTED, "Kos Baru", null, null));
+
+        assertEquals(List.of(), index.search("lama", 10, 0));
+        assertEquals(List.of(kosId), index.search("baru", 10, 0));
+        assertEquals(1.0, meterRegistry.get("kos.search.index.documents").gauge().value());
+    }
+
+    @Test
+    void onKosChanged_occupancyChanged_keepsDocument() {
+        UUID kosId = upsert("Kos Melati", null, null);
+
+        index.onKosChanged(KosChangedEvent.occupancyChanged(kosId));
+
+        assertEquals(List.of(kosId), index.search("melati", 10, 0));
+    }
+
+    @Test
+    void onKosChanged_delete_removesDocumentAndUnusedTerms() {
+        UUID kept = upsert("Kos Umum", null, null);
+        UUID deleted = upsert("Kos Khusus", null, null);
+
+        index.onKosChanged(KosChangedEvent.deleted(deleted));
+
+        assertEquals(List.of(kept), index.search("kos", 10, 0));
+        assertEquals(List.of(), index.search("khusus", 10, 0));
+        assertEquals(2, index.termCount());
+
+        // A freed document id is reused without leaking the deleted Kos
+        UUID reused = upsert("Kos Baru", null, null);
+        assertEquals(List.of(reused), index.search("baru", 10, 0));
+        assertFalse(index.search("kos", 10, 0).contains(deleted));
+    }
+
+    @Test
+    void build_skipsRowsChangedByEventsDuringBuild() {
+        Kos stale = kos("Nama Lama", null, null);
+        when(kosRepository.streamAllBy()).thenAnswer(invocation -> {
+            // The row read by the build is older than a change committed while it was streaming
+            index.onKosChanged(new KosChangedEvent(stale.getId(), KosChangedEvent.Type.UPSERTED, "Nama Baru", null, null));
+            return Stream.of(stale);
+        });
+
+        index.build();
+
+        assertEquals(List.of(stale.getId()), index.search("baru", 10, 0));
+        assertEquals(List.of(), index.search("lama", 10, 0));
+    }
+
+    @Test
+    void parse_splitsOrGroupsAndTokenizesPunctuation() {
+        assertEquals(List.of(List.of("jl", "margonda"), List.of("depok")), KosSearchIndex.parse("Jl.Margonda or DEPOK"));
+        assertEquals(List.of(List.of()), KosSearchIndex.parse("   "));
+    }
+
+    private UUID upsert(String name, String address, String description) {
+        UUID kosId = UUID.randomUUID();
+        index.onKosChanged(new KosChangedEvent(kosId, KosChangedEvent.Type.UPSERTED, name, address, description));
+        return kosId;
+    }
+
+    private static Kos kos(String name, String address, String description) {
+        Kos kos = new Kos();
+        kos.setId(UUID.randomUUID());
+        kos.setName(name);
+        kos.setAddress(address);
+        kos.setDescription(description);
+        return kos;
+    }
+}
@@ -0,0 +1,108 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import com.sun.net.httpserver.HttpServer;
+import id.ac.ui.cs.advprog.papikos.kos.exception.AuthServiceUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthServiceClientTest {
+
+    private HttpServer authServer;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int statusToReturn = 200;
+    private volatile long delayMillis = 0;
+    private SimpleMeterRegistry meterRegistry;
+    private AuthServiceClient authServiceClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        authServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        authServer.createContext("/api/v1/verify", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"status\":" + statusToReturn + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(statusToReturn, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        authServer.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        authServiceClient = new AuthServiceClient(
+                "http://localhost:" + authServer.getAddress().getPort(),
+                10, Duration.ofMillis(500), Duration.ofMillis(300), 10, 50, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        authServiceClient.destroy();
+        authServer.stop(0);
+    }
+
+    @Test
+    void verify_success_returnsResponse() {
+        ResponseEntity<String> response = authServiceClient.verify("valid-token");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void verify_rejectedToken_doesNotOpenCircuit() {
+        statusToReturn = 401;
+
+        for (int i = 0; i < 20; i++) {
+            assertThrows(HttpClientErrorException.class, () -> authServiceClient.verify("invalid-token"));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, authServiceClient.getCircuitBreaker().getState());
+    }
+
+    @Test
+    void verify_slowAuthService_timesOut() {
+        delayMillis = 1_000;
+
+        assertThrows(ResourceAccessException.class, () -> authServiceClient.verify("valid-token"));
+    }
+
+    @Test
+    void verify_unhealthyAuthService_opensCircuitAndFailsFast() {
+        statusToReturn = 500;
+        for (int i = 0; i < 10; i++) {
+            assertThrows(RuntimeException.class, () -> authServiceClient.verify("valid-token"));
+        }
+        int requestsBeforeOpen = requests.get();
+
+        assertEquals(CircuitBreaker.State.OPEN, authServiceClient.getCircuitBreaker().getState());
+        assertThrows(AuthServiceUnavailableException.class, () -> authServiceClient.verify("valid-token"));
+        assertEquals(requestsBeforeOpen, requests.get());
+    }
+
+    @Test
+    void constructor_exportsPoolBreakerAndBulkheadMetrics() {
+        assertNotNull(meterRegistry.find("httpcomponents.httpclient.pool.total.max").meter());
+        assertNotNull(meterRegistry.find("resilience4j.circuitbreaker.state").meter());
+        assertNotNull(meterRegistry.find("resilience4j.bulkhead.available.concurrent.calls").meter());
+    }
+}
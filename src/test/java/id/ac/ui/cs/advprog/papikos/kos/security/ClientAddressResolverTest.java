@@ -0,0 +1,51 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientAddressResolverTest {
+
+    private final ClientAddressResolver resolver = new ClientAddressResolver(List.of("10.0.0.0/8", "192.168.1.1"));
+
+    private static MockHttpServletRequest request(String remoteAddress, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/my");
+        request.setRemoteAddr(remoteAddress);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+
+    @Test
+    void resolve_untrustedPeer_ignoresForwardedHeader() {
+        assertEquals("203.0.113.7", resolver.resolve(request("203.0.113.7", "198.51.100.1")));
+    }
+
+    @Test
+    void resolve_trustedPeer_usesForwardedClient() {
+        assertEquals("198.51.100.1", resolver.resolve(request("10.0.0.5", "198.51.100.1")));
+        assertEquals("198.51.100.2", resolver.resolve(request("10.0.0.5", "198.51.100.2")));
+    }
+
+    @Test
+    void resolve_chainOfTrustedProxies_skipsToRightMostUntrustedHop() {
+        assertEquals("198.51.100.1",
+                resolver.resolve(request("10.0.0.5", "203.0.113.99, 198.51.100.1, 192.168.1.1, 10.1.2.3")));
+    }
+
+    @Test
+    void resolve_trustedPeerWithoutForwardedHeader_usesPeer() {
+        assertEquals("10.0.0.5", resolver.resolve(request("10.0.0.5", null)));
+    }
+
+    @Test
+    void resolve_noTrustedProxies_alwaysUsesPeer() {
+        ClientAddressResolver direct = new ClientAddressResolver(List.of());
+
+        assertEquals("10.0.0.5", direct.resolve(request("10.0.0.5", "198.51.100.1")));
+    }
+}
@@ -0,0 +1,172 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import id.ac.ui.cs.advprog.papikos.kos.exception.InvalidTokenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalJwtTokenVerifierTest {
+
+    private static final String ISSUER = "papikos-auth";
+    private static final Duration REFRESH_COOLDOWN = Duration.ofSeconds(30);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @TempDir
+    Path tempDir;
+
+    private RSAKey signingKey;
+    private Path jwkSetFile;
+    private JwkSetProvider jwkSetProvider;
+    private LocalJwtTokenVerifier localJwtTokenVerifier;
+
+    @BeforeEach
+    void setUp() throws JOSEException, IOException {
+        signingKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        jwkSetFile = tempDir.resolve("jwks.json");
+        writeJwkSet(signingKey);
+
+        jwkSetProvider = new JwkSetProvider(jwkSetFile.toString(), REFRESH_COOLDOWN, clock::get);
+        localJwtTokenVerifier = new LocalJwtTokenVerifier(jwkSetProvider, "RS256", ISSUER, "sub", "role");
+    }
+
+    @Test
+    void verify_validToken_returnsClaims() throws JOSEException {
+        String token = sign(signingKey, claims("user-123", "OWNER", ISSUER, Instant.now().plusSeconds(300)));
+
+        VerifyTokenResponse.Data data = localJwtTokenVerifier.verify(token);
+
+        assertEquals("user-123", data.getUserId());
+        assertEquals("OWNER", data.getRole());
+        assertNotNull(data.getExpiresAt());
+    }
+
+    @Test
+    void verify_expiredToken_throwsInvalidToken() throws JOSEException {
+        String token = sign(signingKey, claims("user-123", "OWNER", ISSUER, Instant.now().minusSeconds(3600)));
+
+        assertThrows(InvalidTokenException.class, () -> localJwtTokenVerifier.verify(token));
+    }
+
+    @Test
+    void verify_wrongIssuer_throwsInvalidToken() throws JOSEException {
+        String token = sign(signingKey, claims("user-123", "OWNER", "someone-else", Instant.now().plusSeconds(300)));
+
+        assertThrows(InvalidTokenException.class, () -> localJwtTokenVerifier.verify(token));
+    }
+
+    @Test
+    void verify_unknownSigningKey_throwsInvalidToken() throws JOSEException {
+        RSAKey otherKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        String token = sign(otherKey, claims("user-123", "OWNER", ISSUER, Instant.now().plusSeconds(300)));
+
+        assertThrows(InvalidTokenException.class, () -> localJwtTokenVerifier.verify(token));
+    }
+
+    @Test
+    void verify_missingRoleClaim_throwsInvalidToken() throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("user-123")
+                .issuer(ISSUER)
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .build();
+
+        String token = sign(signingKey, claims);
+
+        assertThrows(InvalidTokenException.class, () -> localJwtTokenVerifier.verify(token));
+    }
+
+    @Test
+    void verify_malformedToken_throwsInvalidToken() {
+        assertThrows(InvalidTokenException.class, () -> localJwtTokenVerifier.verify("not-a-jwt"));
+    }
+
+    @Test
+    void refresh_picksUpRotatedKey() throws JOSEException, IOException {
+        RSAKey rotatedKey = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        String token = sign(rotatedKey, claims("user-123", "OWNER", ISSUER, Instant.now().plusSeconds(300)));
+        assertThrows(InvalidTokenException.class, () -> localJwtTokenVerifier.verify(token));
+
+        writeJwkSet(signingKey, rotatedKey);
+        jwkSetProvider.refresh();
+
+        assertEquals("user-123", localJwtTokenVerifier.verify(token).getUserId());
+    }
+
+    @Test
+    void verify_tokenSignedWithRotatedKey_reloadsKeySetWithoutWaitingForSchedule() throws JOSEException, IOException {
+        RSAKey rotatedKey = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        writeJwkSet(signingKey, rotatedKey);
+
+        String token = sign(rotatedKey, claims("user-123", "OWNER", ISSUER, Instant.now().plusSeconds(300)));
+
+        assertEquals("user-123", localJwtTokenVerifier.verify(token).getUserId());
+        assertEquals(2, jwkSetProvider.getJwkSet().getKeys().size());
+    }
+
+    @Test
+    void verify_unknownKeysWithinCooldown_reloadKeySetOnlyOnce() throws JOSEException, IOException {
+        RSAKey rotatedKey = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        String token = sign(rotatedKey, claims("user-123", "OWNER", ISSUER, Instant.now().plusSeconds(300)));
+        // Reloads, but the key is not published yet
+        assertThrows(InvalidTokenException.class, () -> localJwtTokenVerifier.verify(token));
+
+        writeJwkSet(signingKey, rotatedKey);
+        clock.addAndGet(REFRESH_COOLDOWN.toNanos() - 1);
+        assertThrows(InvalidTokenException.class, () -> localJwtTokenVerifier.verify(token));
+
+        clock.addAndGet(1);
+        assertEquals("user-123", localJwtTokenVerifier.verify(token).getUserId());
+    }
+
+    @Test
+    void refresh_failedReload_keepsPreviousKeys() throws IOException {
+        Files.writeString(jwkSetFile, "not json");
+
+        jwkSetProvider.refresh();
+
+        assertEquals(1, jwkSetProvider.getJwkSet().getKeys().size());
+        assertFalse(jwkSetProvider.getJwkSet().getKeys().getFirst().isPrivate());
+    }
+
+    private void writeJwkSet(RSAKey... keys) throws IOException {
+        Files.writeString(jwkSetFile, new JWKSet(List.<JWK>of(keys)).toPublicJWKSet().toString());
+    }
+
+    private static JWTClaimsSet claims(String subject, String role, String issuer, Instant expiresAt) {
+        return new JWTClaimsSet.Builder()
+                .subject(subject)
+                .claim("role", role)
+                .issuer(issuer)
+                .expirationTime(Date.from(expiresAt))
+                .build();
+    }
+
+    private static String sign(RSAKey key, JWTClaimsSet claims) throws JOSEException {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
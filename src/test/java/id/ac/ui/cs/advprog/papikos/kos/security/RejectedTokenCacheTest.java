@@ -0,0 +1,43 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RejectedTokenCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RejectedTokenCache rejectedTokenCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rejectedTokenCache = new RejectedTokenCache(Duration.ofSeconds(30), 100, meterRegistry);
+    }
+
+    @Test
+    void isRejected_unknownToken_returnsFalse() {
+        assertFalse(rejectedTokenCache.isRejected("unknown-token"));
+    }
+
+    @Test
+    void markRejected_thenIsRejected_returnsTrue() {
+        rejectedTokenCache.markRejected("bad-token");
+
+        assertTrue(rejectedTokenCache.isRejected("bad-token"));
+        assertFalse(rejectedTokenCache.isRejected("other-token"));
+    }
+
+    @Test
+    void constructor_registersCacheMetrics() {
+        rejectedTokenCache.markRejected("bad-token");
+        rejectedTokenCache.isRejected("bad-token");
+
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", RejectedTokenCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+    }
+}
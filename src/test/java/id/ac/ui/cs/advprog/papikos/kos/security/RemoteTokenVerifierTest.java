@@ -0,0 +1,89 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import id.ac.ui.cs.advprog.papikos.kos.exception.AuthServiceUnavailableException;
+import id.ac.ui.cs.advprog.papikos.kos.exception.InvalidTokenException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RemoteTokenVerifierTest {
+
+    @Mock
+    private AuthServiceClient authServiceClient;
+
+    @Mock
+    private ObjectMapper objectMapper;
+
+    @InjectMocks
+    private RemoteTokenVerifier remoteTokenVerifier;
+
+    @Test
+    void verify_validToken_returnsUserData() throws Exception {
+        String token = "valid-token";
+        VerifyTokenResponse.Data tokenData = VerifyTokenResponse.Data.builder().userId("user-123").role("PEMILIK").build();
+        VerifyTokenResponse verifyResponse = VerifyTokenResponse.builder().data(tokenData).build();
+        String verifyResponseJson = "{\"data\":{\"userId\":\"user-123\",\"role\":\"PEMILIK\"}}";
+
+        when(authServiceClient.verify(token)).thenReturn(new ResponseEntity<>(verifyResponseJson, HttpStatus.OK));
+        when(objectMapper.readValue(verifyResponseJson, VerifyTokenResponse.class)).thenReturn(verifyResponse);
+
+        VerifyTokenResponse.Data result = remoteTokenVerifier.verify(token);
+
+        assertEquals(tokenData, result);
+        verify(authServiceClient, times(1)).verify(token);
+    }
+
+    @Test
+    void verify_nonSuccessfulStatus_throwsInvalidToken() {
+        when(authServiceClient.verify("invalid-token"))
+                .thenReturn(new ResponseEntity<>("Invalid token", HttpStatus.UNAUTHORIZED));
+
+        InvalidTokenException exception = assertThrows(InvalidTokenException.class,
+                () -> remoteTokenVerifier.verify("invalid-token"));
+
+        assertEquals("Token verification unsuccessful", exception.getMessage());
+        verifyNoInteractions(objectMapper);
+    }
+
+    @Test
+    void verify_httpClientError_throwsInvalidToken() {
+        when(authServiceClient.verify("token-causes-client-error"))
+                .thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN, "Forbidden from auth service"));
+
+        InvalidTokenException exception = assertThrows(InvalidTokenException.class,
+                () -> remoteTokenVerifier.verify("token-causes-client-error"));
+
+        assertEquals("Invalid token or authentication service error.", exception.getMessage());
+    }
+
+    @Test
+    void verify_restClientException_throwsAuthServiceUnavailable() {
+        when(authServiceClient.verify("token-causes-rest-error"))
+                .thenThrow(new RestClientException("Connection refused"));
+
+        AuthServiceUnavailableException exception = assertThrows(AuthServiceUnavailableException.class,
+                () -> remoteTokenVerifier.verify("token-causes-rest-error"));
+
+        assertEquals("Could not connect to authentication service.", exception.getMessage());
+    }
+
+    @Test
+    void verify_circuitOpen_propagatesAuthServiceUnavailable() {
+        AuthServiceUnavailableException open = new AuthServiceUnavailableException("Authentication service is unavailable.");
+        when(authServiceClient.verify("any-token")).thenThrow(open);
+
+        assertSame(open, assertThrows(AuthServiceUnavailableException.class, () -> remoteTokenVerifier.verify("any-token")));
+    }
+}
@@ -0,0 +1,60 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenAuthenticationEntryPointTest {
+
+    private final TokenAuthenticationEntryPoint entryPoint = new TokenAuthenticationEntryPoint();
+
+    @Test
+    void commence_badCredentials_returnsUnauthorized() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        entryPoint.commence(new MockHttpServletRequest("GET", "/api/v1/my"), response,
+                new BadCredentialsException("Invalid token or authentication service error."));
+
+        assertEquals(401, response.getStatus());
+        assertEquals("Authentication Failed: Invalid token or authentication service error.", response.getContentAsString());
+    }
+
+    @Test
+    void commence_missingToken_returnsUnauthorized() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        entryPoint.commence(new MockHttpServletRequest("GET", "/api/v1/my"), response,
+                new InsufficientAuthenticationException("Full authentication is required to access this resource"));
+
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void commence_authServiceError_returnsServiceUnavailable() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        entryPoint.commence(new MockHttpServletRequest("GET", "/api/v1/my"), response,
+                new AuthenticationServiceException("Could not connect to authentication service."));
+
+        assertEquals(503, response.getStatus());
+        assertEquals("Authentication Failed: Could not connect to authentication service.", response.getContentAsString());
+    }
+
+    @Test
+    void commence_throttled_returnsTooManyRequests() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        entryPoint.commence(new MockHttpServletRequest("GET", "/api/v1/my"), response,
+                new VerificationThrottledException("Too many token verification attempts."));
+
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+    }
+}
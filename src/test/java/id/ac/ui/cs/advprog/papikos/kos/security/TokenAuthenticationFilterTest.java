@@ -1,43 +1,60 @@
 package id.ac.ui.cs.advprog.papikos.kos.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import id.ac.ui.cs.advprog.papikos.kos.exception.AuthServiceUnavailableException;
+import id.ac.ui.cs.advprog.papikos.kos.exception.InvalidTokenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TokenAuthenticationFilterTest {
 
     @Mock
-    private RestTemplate restTemplate;
+    private TokenVerifier tokenVerifier;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private TokenVerificationCache tokenVerificationCache;
+
+    @Spy
+    private VerificationSingleFlight verificationSingleFlight = new VerificationSingleFlight(new SimpleMeterRegistry());
+
+    @Mock
+    private RejectedTokenCache rejectedTokenCache;
+
+    @Mock
+    private VerificationRateLimiter verificationRateLimiter;
+
+    @Spy
+    private ClientAddressResolver clientAddressResolver = new ClientAddressResolver(List.of("10.0.0.0/8"));
 
     @InjectMocks
     private TokenAuthenticationFilter tokenAuthenticationFilter;
@@ -51,16 +68,19 @@ class TokenAuthenticationFilterTest {
     @Mock
     private FilterChain filterChain;
 
-    private final String AUTH_VERIFY_URL = "http://localhost:8080/auth";
     private final String INTERNAL_TOKEN_SECRET = "test-secret";
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(tokenAuthenticationFilter, "authVerifyUrl", AUTH_VERIFY_URL);
         ReflectionTestUtils.setField(tokenAuthenticationFilter, "internalTokenSecret", INTERNAL_TOKEN_SECRET);
         SecurityContextHolder.clearContext(); // Ensure clean context for each test
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext(); // Don't leak deferred contexts into other tests
+    }
+
     @Test
     void doFilterInternal_noToken_continuesFilterChain() throws ServletException, IOException {
         when(request.getHeader("Authorization")).thenReturn(null);
@@ -82,19 +102,43 @@ class TokenAuthenticationFilterTest {
         when(request.getHeader("X-Internal-Token")).thenReturn(null);
 
         VerifyTokenResponse.Data tokenData = VerifyTokenResponse.Data.builder().userId(userId).role(userRole).build();
-        VerifyTokenResponse verifyResponse = VerifyTokenResponse.builder().data(tokenData).build();
-        String verifyResponseJson = "{\"data\":{\"userId\":\"" + userId + "\",\"role\":\"" + userRole + "\"}}";
+        when(verificationRateLimiter.tryAcquire(any())).thenReturn(true);
+        when(tokenVerifier.verify(token)).thenReturn(tokenData);
+
+        tokenAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals(userId, authentication.getPrincipal());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals(userRole)));
+        assertSame(authentication, SecurityContextHolder.getContext().getAuthentication());
+        verify(tokenVerifier, times(1)).verify(token);
+        verify(tokenVerificationCache, times(1)).put(token, tokenData);
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
 
-        ResponseEntity<String> responseEntity = new ResponseEntity<>(verifyResponseJson, HttpStatus.OK);
+    @Test
+    void doFilterInternal_bearerToken_notVerifiedUntilPrincipalIsNeeded() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn("Bearer public-route-token");
+        when(request.getHeader("X-Internal-Token")).thenReturn(null);
 
-        when(restTemplate.exchange(
-                eq(AUTH_VERIFY_URL + "/api/v1/verify"),
-                eq(HttpMethod.POST),
-                any(HttpEntity.class),
-                eq(String.class)
-        )).thenReturn(responseEntity);
+        tokenAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        when(objectMapper.readValue(verifyResponseJson, VerifyTokenResponse.class)).thenReturn(verifyResponse);
+        // A permitAll route never asks for the principal, so the auth service is never called
+        verify(filterChain, times(1)).doFilter(request, response);
+        verifyNoInteractions(tokenVerifier, tokenVerificationCache, rejectedTokenCache, verificationRateLimiter, response);
+    }
+
+    @Test
+    void doFilterInternal_cachedBearerToken_skipsVerifier() throws ServletException, IOException {
+        String token = "cached-token";
+        String userId = "user-456";
+        String userRole = "OWNER";
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(request.getHeader("X-Internal-Token")).thenReturn(null);
+        when(tokenVerificationCache.get(token))
+                .thenReturn(VerifyTokenResponse.Data.builder().userId(userId).role(userRole).build());
 
         tokenAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -102,74 +146,100 @@ class TokenAuthenticationFilterTest {
         assertNotNull(authentication);
         assertEquals(userId, authentication.getPrincipal());
         assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals(userRole)));
+        verify(tokenVerifier, never()).verify(anyString());
+        verifyNoInteractions(rejectedTokenCache, verificationRateLimiter);
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
     @Test
-    void doFilterInternal_invalidBearerToken_verificationFails_returnsUnauthorized() throws ServletException, IOException {
-        String token = "invalid-token";
+    void doFilterInternal_previouslyRejectedToken_rejectedWithoutCallingVerifier() throws ServletException, IOException {
+        String token = "rejected-token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
         when(request.getHeader("X-Internal-Token")).thenReturn(null);
+        when(rejectedTokenCache.isRejected(token)).thenReturn(true);
 
-        ResponseEntity<String> responseEntity = new ResponseEntity<>("Invalid token", HttpStatus.UNAUTHORIZED);
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(responseEntity);
-        // objectMapper.readValue will be called by the filter, need to mock its behavior for non-2xx status
-        // For this specific path, if status is not 2xx, objectMapper.readValue might not be reached for VerifyTokenResponse.class
-        // as the filter returns early.
+        tokenAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        StringWriter stringWriter = new StringWriter();
-        PrintWriter printWriter = new PrintWriter(stringWriter);
-        when(response.getWriter()).thenReturn(printWriter);
+        assertThrows(BadCredentialsException.class, SecurityContextHolder::getContext);
+        verify(tokenVerifier, never()).verify(anyString());
+        verifyNoInteractions(verificationRateLimiter);
+    }
+
+    @Test
+    void doFilterInternal_clientOverVerificationRate_throwsThrottledWhenResolved() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn("Bearer unknown-token");
+        when(request.getHeader("X-Internal-Token")).thenReturn(null);
+        when(request.getRemoteAddr()).thenReturn("203.0.113.7");
+        when(verificationRateLimiter.tryAcquire("203.0.113.7")).thenReturn(false);
 
         tokenAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        verify(response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        assertTrue(stringWriter.toString().contains("Authentication Failed: Token verification unsuccessful"));
-        verify(filterChain, never()).doFilter(request, response);
-        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertThrows(VerificationThrottledException.class, SecurityContextHolder::getContext);
+        verify(tokenVerifier, never()).verify(anyString());
+    }
+
+    @Test
+    void doFilterInternal_clientsBehindTrustedProxy_rateLimitedByForwardedAddress() throws ServletException, IOException {
+        when(verificationRateLimiter.tryAcquire(any())).thenReturn(true);
+        when(tokenVerifier.verify(anyString()))
+                .thenReturn(VerifyTokenResponse.Data.builder().userId("user-123").role("PEMILIK").build());
+
+        for (String client : List.of("198.51.100.1", "198.51.100.2")) {
+            MockHttpServletRequest forwarded = new MockHttpServletRequest("GET", "/api/v1/my");
+            forwarded.setRemoteAddr("10.0.0.5");
+            // A spoofed left-most hop must not decide the bucket
+            forwarded.addHeader("X-Forwarded-For", "203.0.113.99, " + client);
+            forwarded.addHeader("Authorization", "Bearer token-" + client);
+
+            tokenAuthenticationFilter.doFilterInternal(forwarded, new MockHttpServletResponse(), new MockFilterChain());
+            assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+            SecurityContextHolder.clearContext();
+        }
+
+        verify(verificationRateLimiter).tryAcquire("198.51.100.1");
+        verify(verificationRateLimiter).tryAcquire("198.51.100.2");
+        verify(verificationRateLimiter, never()).tryAcquire("10.0.0.5");
+        verify(verificationRateLimiter, never()).tryAcquire("203.0.113.99");
     }
 
     @Test
-    void doFilterInternal_authServiceHttpClientError_returnsUnauthorized() throws ServletException, IOException {
-        String token = "token-causes-client-error";
+    void doFilterInternal_invalidBearerToken_verificationFails_throwsBadCredentialsWhenResolved() throws ServletException, IOException {
+        String token = "invalid-token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
         when(request.getHeader("X-Internal-Token")).thenReturn(null);
 
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
-                .thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN, "Forbidden from auth service"));
-
-        StringWriter stringWriter = new StringWriter();
-        PrintWriter printWriter = new PrintWriter(stringWriter);
-        when(response.getWriter()).thenReturn(printWriter);
+        when(verificationRateLimiter.tryAcquire(any())).thenReturn(true);
+        when(tokenVerifier.verify(token)).thenThrow(new InvalidTokenException("Token verification unsuccessful"));
 
         tokenAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        verify(response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        assertTrue(stringWriter.toString().contains("Authentication Failed: Invalid token or authentication service error."));
-        verify(filterChain, never()).doFilter(request, response);
-        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain, times(1)).doFilter(request, response);
+        BadCredentialsException exception = assertThrows(BadCredentialsException.class, SecurityContextHolder::getContext);
+        assertEquals("Token verification unsuccessful", exception.getMessage());
+        // The failure is remembered for the rest of the request instead of re-verifying
+        assertThrows(BadCredentialsException.class, SecurityContextHolder::getContext);
+        verify(tokenVerifier, times(1)).verify(token);
+        verify(tokenVerificationCache, never()).put(anyString(), any());
+        verify(rejectedTokenCache, times(1)).markRejected(token);
     }
 
     @Test
-    void doFilterInternal_authServiceRestClientException_returnsInternalServerError() throws ServletException, IOException {
+    void doFilterInternal_authServiceUnavailable_throwsAuthenticationServiceExceptionWhenResolved() throws ServletException, IOException {
         String token = "token-causes-rest-error";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
         when(request.getHeader("X-Internal-Token")).thenReturn(null);
 
-        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
-                .thenThrow(new RestClientException("Connection refused"));
-
-        StringWriter stringWriter = new StringWriter();
-        PrintWriter printWriter = new PrintWriter(stringWriter);
-        when(response.getWriter()).thenReturn(printWriter);
+        when(verificationRateLimiter.tryAcquire(any())).thenReturn(true);
+        when(tokenVerifier.verify(token))
+                .thenThrow(new AuthServiceUnavailableException("Could not connect to authentication service."));
 
         tokenAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        verify(response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-        assertTrue(stringWriter.toString().contains("Authentication Failed: Could not connect to authentication service."));
-        verify(filterChain, never()).doFilter(request, response);
-        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain, times(1)).doFilter(request, response);
+        AuthenticationServiceException exception = assertThrows(AuthenticationServiceException.class, SecurityContextHolder::getContext);
+        assertEquals("Could not connect to authentication service.", exception.getMessage());
+        // An unavailable auth service says nothing about the token itself
+        verify(rejectedTokenCache, never()).markRejected(anyString());
     }
 
     @Test
@@ -213,4 +283,3 @@ class TokenAuthenticationFilterTest {
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 }
-
@@ -0,0 +1,88 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenVerificationCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenVerificationCache tokenVerificationCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenVerificationCache = new TokenVerificationCache(Duration.ofMinutes(1), 100, meterRegistry);
+    }
+
+    @Test
+    void get_unknownToken_returnsNull() {
+        assertNull(tokenVerificationCache.get("unknown-token"));
+    }
+
+    @Test
+    void put_thenGet_returnsCachedData() {
+        VerifyTokenResponse.Data data = VerifyTokenResponse.Data.builder().userId("user-1").role("OWNER").build();
+
+        tokenVerificationCache.put("token-1", data);
+
+        assertEquals(data, tokenVerificationCache.get("token-1"));
+        assertNull(tokenVerificationCache.get("token-2"));
+    }
+
+    @Test
+    void put_tokenAlreadyExpired_isNotServed() {
+        tokenVerificationCache.put("token-1", VerifyTokenResponse.Data.builder().userId("user-1")
+                .expiresAt(Instant.now().minusSeconds(1)).build());
+
+        assertNull(tokenVerificationCache.get("token-1"));
+    }
+
+    @Test
+    void put_tokenExpiringAfterTtl_isServed() {
+        VerifyTokenResponse.Data data = VerifyTokenResponse.Data.builder().userId("user-1")
+                .expiresAt(Instant.now().plusSeconds(3600)).build();
+
+        tokenVerificationCache.put("token-1", data);
+
+        assertEquals(data, tokenVerificationCache.get("token-1"));
+    }
+
+    @Test
+    void invalidate_removesCachedData() {
+        tokenVerificationCache.put("token-1", VerifyTokenResponse.Data.builder().userId("user-1").build());
+
+        tokenVerificationCache.invalidate("token-1");
+
+        assertNull(tokenVerificationCache.get("token-1"));
+    }
+
+    @Test
+    void get_recordsHitAndMissMetrics() {
+        tokenVerificationCache.put("token-1", VerifyTokenResponse.Data.builder().userId("user-1").build());
+
+        tokenVerificationCache.get("token-1");
+        tokenVerificationCache.get("token-2");
+
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", TokenVerificationCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", TokenVerificationCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", TokenVerificationCache.CACHE_NAME).meter());
+    }
+
+    @Test
+    void sha256_doesNotExposeRawToken() {
+        String hash = TokenHashes.sha256("secret-token");
+
+        assertEquals(64, hash.length());
+        assertFalse(hash.contains("secret-token"));
+        assertEquals(hash, TokenHashes.sha256("secret-token"));
+    }
+}
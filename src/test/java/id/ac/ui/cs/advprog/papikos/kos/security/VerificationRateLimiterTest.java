@@ -0,0 +1,69 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificationRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private VerificationRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new VerificationRateLimiter(3, 1, 1024, meterRegistry, clock::get);
+    }
+
+    @Test
+    void tryAcquire_withinBurst_allowed() {
+        assertTrue(rateLimiter.tryAcquire("10.0.0.1"));
+        assertTrue(rateLimiter.tryAcquire("10.0.0.1"));
+        assertTrue(rateLimiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void tryAcquire_burstExhausted_throttledAndCounted() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("10.0.0.1");
+        }
+
+        assertFalse(rateLimiter.tryAcquire("10.0.0.1"));
+        assertEquals(1.0, meterRegistry.get("auth.token.verification.throttled").counter().count());
+    }
+
+    @Test
+    void tryAcquire_afterRefill_allowedAgain() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("10.0.0.1");
+        }
+        assertFalse(rateLimiter.tryAcquire("10.0.0.1"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertTrue(rateLimiter.tryAcquire("10.0.0.1"));
+        assertFalse(rateLimiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void tryAcquire_otherClient_hasOwnBucket() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("10.0.0.1");
+        }
+
+        assertFalse(rateLimiter.tryAcquire("10.0.0.1"));
+        assertTrue(rateLimiter.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    void constructor_nonPositiveCapacity_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new VerificationRateLimiter(0, 1, 16, meterRegistry, clock::get));
+    }
+}
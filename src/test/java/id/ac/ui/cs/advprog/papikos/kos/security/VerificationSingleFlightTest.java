@@ -0,0 +1,137 @@
+package id.ac.ui.cs.advprog.papikos.kos.security;
+
+import id.ac.ui.cs.advprog.papikos.kos.dto.VerifyTokenResponse;
+import id.ac.ui.cs.advprog.papikos.kos.exception.InvalidTokenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificationSingleFlightTest {
+
+    private static final int PARALLEL_REQUESTS = 10;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerificationSingleFlight verificationSingleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verificationSingleFlight = new VerificationSingleFlight(meterRegistry);
+        executor = Executors.newFixedThreadPool(PARALLEL_REQUESTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_singleCaller_runsVerification() {
+        VerifyTokenResponse.Data data = VerifyTokenResponse.Data.builder().userId("user-1").build();
+
+        assertEquals(data, verificationSingleFlight.execute("token", () -> data));
+        assertEquals(data, verificationSingleFlight.execute("token", () -> data));
+        assertEquals(0.0, meterRegistry.get("auth.token.verification.inflight").gauge().value());
+    }
+
+    @Test
+    void parallelRequestsWithSameToken_causeExactlyOneUpstreamCall() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch releaseUpstream = new CountDownLatch(1);
+        TokenVerifier slowVerifier = token -> {
+            upstreamCalls.incrementAndGet();
+            awaitQuietly(releaseUpstream);
+            return VerifyTokenResponse.Data.builder().userId("user-123").role("OWNER").build();
+        };
+        TokenAuthenticationFilter filter = new TokenAuthenticationFilter(slowVerifier,
+                new TokenVerificationCache(Duration.ofMinutes(1), 100, meterRegistry), verificationSingleFlight,
+                new RejectedTokenCache(Duration.ofSeconds(30), 100, meterRegistry),
+                new VerificationRateLimiter(PARALLEL_REQUESTS, 1, 16, meterRegistry),
+                new ClientAddressResolver(List.of()));
+        ReflectionTestUtils.setField(filter, "internalTokenSecret", "test-secret");
+
+        List<Future<Authentication>> results = new ArrayList<>();
+        for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+            results.add(executor.submit(() -> {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/my");
+                request.addHeader("Authorization", "Bearer shared-token");
+                try {
+                    filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+                    return SecurityContextHolder.getContext().getAuthentication();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+
+        // Hold the single upstream call open until every other request is waiting on it
+        waitUntil(() -> meterRegistry.get("auth.token.verification.coalesced").counter().count() == PARALLEL_REQUESTS - 1);
+        releaseUpstream.countDown();
+
+        for (Future<Authentication> result : results) {
+            Authentication authentication = result.get(5, TimeUnit.SECONDS);
+            assertNotNull(authentication);
+            assertEquals("user-123", authentication.getPrincipal());
+        }
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void concurrentCallers_shareFailure() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch releaseUpstream = new CountDownLatch(1);
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+            results.add(executor.submit(() -> verificationSingleFlight.execute("bad-token", () -> {
+                upstreamCalls.incrementAndGet();
+                awaitQuietly(releaseUpstream);
+                throw new InvalidTokenException("Invalid token or authentication service error.");
+            })));
+        }
+
+        waitUntil(() -> meterRegistry.get("auth.token.verification.coalesced").counter().count() == PARALLEL_REQUESTS - 1);
+        releaseUpstream.countDown();
+
+        for (Future<?> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(InvalidTokenException.class, exception.getCause());
+        }
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
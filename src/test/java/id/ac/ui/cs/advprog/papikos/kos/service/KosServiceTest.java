@@ -1,25 +1,64 @@
 package id.ac.ui.cs.advprog.papikos.kos.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import id.ac.ui.cs.advprog.papikos.kos.cache.KosCache;
+import id.ac.ui.cs.advprog.papikos.kos.cache.ProcessedRentalIdCache;
+import id.ac.ui.cs.advprog.papikos.kos.dto.CursorPage;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosBatch;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosCursor;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosField;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosFilter;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosOccupancyChange;
+import id.ac.ui.cs.advprog.papikos.kos.dto.KosSummary;
+import id.ac.ui.cs.advprog.papikos.kos.dto.SlicePage;
+import id.ac.ui.cs.advprog.papikos.kos.event.KosChangedEvent;
+import id.ac.ui.cs.advprog.papikos.kos.event.RentalEventsProcessedEvent;
 import id.ac.ui.cs.advprog.papikos.kos.model.Kos;
+import id.ac.ui.cs.advprog.papikos.kos.model.ProcessedRentalEvent;
 import id.ac.ui.cs.advprog.papikos.kos.repository.KosRepository;
+import id.ac.ui.cs.advprog.papikos.kos.repository.ProcessedRentalEventRepository;
+import id.ac.ui.cs.advprog.papikos.kos.search.KosSearchIndex;
 import id.ac.ui.cs.advprog.papikos.kos.exception.KosNotFoundException;
 import id.ac.ui.cs.advprog.papikos.kos.exception.UnauthorizedAccessException;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.List;
 import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +67,27 @@ class KosServiceTest {
     @Mock
     private KosRepository kosRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private KosSearchIndex kosSearchIndex;
+
+    @Mock
+    private KosCache kosCache;
+
+    @Mock
+    private ProcessedRentalEventRepository processedRentalEventRepository;
+
+    @Mock
+    private ProcessedRentalIdCache processedRentalIdCache;
+
     @InjectMocks
     private KosServiceImpl kosService;
 
@@ -92,6 +152,7 @@ class KosServiceTest {
 
         // Assert: Verify repository save was called exactly once
         verify(kosRepository, times(1)).save(any(Kos.class));
+        verify(eventPublisher, times(1)).publishEvent(any(KosChangedEvent.class));
     }
 
     @Test
@@ -118,8 +179,8 @@ class KosServiceTest {
     // --- READ ---
     @Test
     void findKosById_Success() {
-        // Arrange: Mock the repository to return the kos object when findById is called
-        when(kosRepository.findById(kosId)).thenReturn(Optional.of(kos));
+        // Arrange: Mock the cache to return the kos object when findById is called
+        when(kosCache.findById(kosId)).thenReturn(Optional.of(kos));
 
         // Act: Call the service method
         Kos foundKos = kosService.findKosById(kosId);
@@ -129,14 +190,66 @@ class KosServiceTest {
         assertEquals(kosId, foundKos.getId());
         assertEquals(kos.getName(), foundKos.getName());
         assertEquals(ownerUserId, foundKos.getOwnerUserId());
-        verify(kosRepository, times(1)).findById(kosId); // Verify findById was called once
+        verify(kosCache, times(1)).findById(kosId); // Verify findById was called once
+        verifyNoInteractions(kosRepository);
+    }
+
+    @Test
+    void findKosByIds_SplitsFoundAndMissingAndDeduplicates() {
+        UUID missingId = UUID.randomUUID();
+        when(kosCache.findAllById(new LinkedHashSet<>(List.of(kosId, missingId))))
+                .thenReturn(Map.of(kosId, kos));
+
+        KosBatch batch = kosService.findKosByIds(List.of(kosId, missingId, kosId));
+
+        assertEquals(Map.of(kosId, kos), batch.getFound());
+        assertEquals(List.of(missingId), batch.getMissing());
+        verifyNoInteractions(kosRepository);
+    }
+
+    @Test
+    void findKosByIds_InvalidRequest_ThrowsIllegalArgumentException() {
+        List<UUID> tooMany = Stream.generate(UUID::randomUUID).limit(KosServiceImpl.MAX_BATCH_SIZE + 1).toList();
+        List<UUID> withNull = new ArrayList<>(List.of(kosId));
+        withNull.add(null);
+
+        assertThrows(IllegalArgumentException.class, () -> kosService.findKosByIds(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> kosService.findKosByIds(null));
+        assertThrows(IllegalArgumentException.class, () -> kosService.findKosByIds(tooMany));
+        assertThrows(IllegalArgumentException.class, () -> kosService.findKosByIds(withNull));
+        verifyNoInteractions(kosCache);
+    }
+
+    @Test
+    void findKosLastModified_Cached_DoesNotQueryRepository() {
+        when(kosCache.getIfPresent(kosId)).thenReturn(Optional.of(kos));
+
+        assertEquals(kos.getUpdatedAt(), kosService.findKosLastModified(kosId));
+        verifyNoInteractions(kosRepository);
+    }
+
+    @Test
+    void findKosLastModified_NotCached_QueriesOnlyTheTimestamp() {
+        when(kosCache.getIfPresent(kosId)).thenReturn(Optional.empty());
+        when(kosRepository.findUpdatedAtById(kosId)).thenReturn(Optional.of(kos.getUpdatedAt()));
+
+        assertEquals(kos.getUpdatedAt(), kosService.findKosLastModified(kosId));
+        verify(kosRepository, never()).findById(any());
+    }
+
+    @Test
+    void findKosLastModified_NotFound_ThrowsKosNotFoundException() {
+        when(kosCache.getIfPresent(kosId)).thenReturn(Optional.empty());
+        when(kosRepository.findUpdatedAtById(kosId)).thenReturn(Optional.empty());
+
+        assertThrows(KosNotFoundException.class, () -> kosService.findKosLastModified(kosId));
     }
 
     @Test
     void findKosById_NotFound() {
-        // Arrange: Mock the repository to return an empty Optional
+        // Arrange: Mock the cache to return an empty Optional
         UUID nonExistentId = UUID.randomUUID();
-        when(kosRepository.findById(nonExistentId)).thenReturn(Optional.empty());
+        when(kosCache.findById(nonExistentId)).thenReturn(Optional.empty());
 
         // Act & Assert: Check if KosNotFoundException is thrown
         Exception exception = assertThrows(KosNotFoundException.class, () -> {
@@ -148,64 +261,172 @@ class KosServiceTest {
         String actualMessage = exception.getMessage();
         assertTrue(actualMessage.contains(expectedMessage));
 
-        verify(kosRepository, times(1)).findById(nonExistentId); // Verify findById was called
+        verify(kosCache, times(1)).findById(nonExistentId); // Verify findById was called
     }
 
     @Test
     void findKosByOwnerUserId_Success() {
-        // Arrange: Mock repository to return a list containing the kos
-        List<Kos> expectedKosList = List.of(kos);
-        // Assuming repository method is findByOwnerUserId
-        when(kosRepository.findKosByOwnerUserId(ownerUserId)).thenReturn(expectedKosList);
+        // Arrange: Mock repository to return the summary of the kos
+        KosSummary summary = summaryOf(kos);
+        when(kosRepository.findSummariesByOwnerUserId(ownerUserId)).thenReturn(List.of(summary));
 
         // Act: Call the service method
-        List<Kos> actualKosList = kosService.findKosByOwnerUserId(ownerUserId);
+        List<KosSummary> actualKosList = kosService.findKosByOwnerUserId(ownerUserId);
 
-        // Assert: Check if the correct list is returned
+        // Assert: Check if the correct list is returned, without loading entities
         assertNotNull(actualKosList);
         assertEquals(1, actualKosList.size());
-        assertEquals(kos, actualKosList.getFirst());
-        verify(kosRepository, times(1)).findKosByOwnerUserId(ownerUserId);
+        assertSame(summary, actualKosList.getFirst());
+        verify(kosRepository, times(1)).findSummariesByOwnerUserId(ownerUserId);
     }
 
     @Test
     void findKosByOwnerUserId_NoKosFound() {
         // Arrange: Mock repository to return an empty list for a different owner
         UUID userWithNoKos = UUID.randomUUID();
-        when(kosRepository.findKosByOwnerUserId(userWithNoKos)).thenReturn(Collections.emptyList());
+        when(kosRepository.findSummariesByOwnerUserId(userWithNoKos)).thenReturn(Collections.emptyList());
 
         // Act: Call the service method
-        List<Kos> actualKosList = kosService.findKosByOwnerUserId(userWithNoKos);
+        List<KosSummary> actualKosList = kosService.findKosByOwnerUserId(userWithNoKos);
 
         // Assert: Check if an empty list is returned
         assertNotNull(actualKosList);
         assertTrue(actualKosList.isEmpty());
-        verify(kosRepository, times(1)).findKosByOwnerUserId(userWithNoKos);
+        verify(kosRepository, times(1)).findSummariesByOwnerUserId(userWithNoKos);
     }
 
     @Test
-    void findAllKos_Success() {
-        // Arrange: Prepare another Kos object for the list
+    void findKosPage_FirstPage_ReturnsItemsAndNextCursor() {
         Kos anotherKos = new Kos();
         anotherKos.setId(UUID.randomUUID());
         anotherKos.setOwnerUserId(anotherUserId);
         anotherKos.setName("Kos Lain");
-        // ... set other properties ...
+        anotherKos.setCreatedAt(kos.getCreatedAt().plusMinutes(1));
 
-        List<Kos> expectedKosList = List.of(kos, anotherKos);
-        when(kosRepository.findAll()).thenReturn(expectedKosList);
+        KosSummary summary = summaryOf(kos);
 
-        // Act
-        List<Kos> actualKosList = kosService.findAllKos();
+        // limit + 1 rows come back, so there is a next page
+        when(kosRepository.findFirstSummaryPage(Limit.of(2))).thenReturn(List.of(summary, summaryOf(anotherKos)));
 
-        // Assert
-        assertNotNull(actualKosList);
-        assertEquals(2, actualKosList.size());
-        assertTrue(actualKosList.contains(kos));
-        assertTrue(actualKosList.contains(anotherKos));
-        verify(kosRepository, times(1)).findAll();
+        CursorPage<KosSummary> page = kosService.findKosPage(null, 1);
+
+        assertEquals(List.of(summary), page.getItems());
+        assertNotNull(page.getNextCursor());
+        KosCursor nextCursor = KosCursor.decode(page.getNextCursor());
+        assertEquals(kos.getCreatedAt(), nextCursor.getCreatedAt());
+        assertEquals(kosId, nextCursor.getId());
+    }
+
+    @Test
+    void findKosPage_AfterCursor_LastPage_HasNoNextCursor() {
+        String after = new KosCursor(kos.getCreatedAt(), kosId).encode();
+        Kos lastKos = new Kos();
+        lastKos.setId(UUID.randomUUID());
+        lastKos.setCreatedAt(kos.getCreatedAt().plusMinutes(1));
+        KosSummary lastSummary = summaryOf(lastKos);
+        when(kosRepository.findSummaryPageAfter(kos.getCreatedAt(), kosId, Limit.of(21))).thenReturn(List.of(lastSummary));
+
+        CursorPage<KosSummary> page = kosService.findKosPage(after, 20);
+
+        assertEquals(List.of(lastSummary), page.getItems());
+        assertNull(page.getNextCursor());
+        verify(kosRepository, never()).findFirstSummaryPage(any());
+    }
+
+    @Test
+    void findKosPage_LimitAboveMaximum_IsCapped() {
+        when(kosRepository.findFirstSummaryPage(Limit.of(KosServiceImpl.MAX_PAGE_SIZE + 1)))
+                .thenReturn(Collections.emptyList());
+
+        CursorPage<KosSummary> page = kosService.findKosPage(null, 10_000);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void findKosFieldPage_SelectsCursorKeyButReturnsOnlyRequestedFields() {
+        Set<KosField> selected = EnumSet.of(KosField.ID, KosField.NAME, KosField.CREATED_AT);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i == 0 ? kosId : UUID.randomUUID());
+            row.put("name", "Kos " + i);
+            row.put("createdAt", kos.getCreatedAt().plusMinutes(i));
+            rows.add(row);
+        }
+        when(kosRepository.findFieldPage(selected, null, 2)).thenReturn(rows);
+
+        CursorPage<Map<String, Object>> page = kosService.findKosFieldPage(null, 1, EnumSet.of(KosField.NAME));
+
+        assertEquals(List.of(Map.of("name", "Kos 0")), page.getItems());
+        KosCursor nextCursor = KosCursor.decode(page.getNextCursor());
+        assertEquals(kos.getCreatedAt(), nextCursor.getCreatedAt());
+        assertEquals(kosId, nextCursor.getId());
+    }
+
+    @Test
+    void findKosFieldsById_NotFound_ThrowsKosNotFoundException() {
+        Set<KosField> fields = EnumSet.of(KosField.NAME);
+        when(kosRepository.findFieldsById(fields, kosId)).thenReturn(Optional.empty());
+
+        assertThrows(KosNotFoundException.class, () -> kosService.findKosFieldsById(kosId, fields));
     }
 
+    @Test
+    void findKosFieldsByOwnerUserId_DelegatesToFieldQuery() {
+        Set<KosField> fields = EnumSet.of(KosField.ID, KosField.OCCUPIED_ROOMS);
+        List<Map<String, Object>> rows = List.of(Map.of("id", kosId, "occupiedRooms", 2));
+        when(kosRepository.findFieldsByOwnerUserId(fields, ownerUserId)).thenReturn(rows);
+
+        assertSame(rows, kosService.findKosFieldsByOwnerUserId(ownerUserId, fields));
+        verify(kosRepository, never()).findSummariesByOwnerUserId(any());
+    }
+
+    @Test
+    void findKosPage_InvalidArguments_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> kosService.findKosPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> kosService.findKosPage("not-a-cursor", 20));
+        verifyNoInteractions(kosRepository);
+    }
+
+
+    @Test
+    void exportKos_WritesOneJsonObjectPerLineAndDetachesRows() throws Exception {
+        Kos anotherKos = new Kos();
+        anotherKos.setId(UUID.randomUUID());
+        anotherKos.setOwnerUserId(anotherUserId);
+        anotherKos.setName("Kos Lain");
+        when(kosRepository.streamAllBy()).thenReturn(Stream.of(kos, anotherKos));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long exported = kosService.exportKos(outputStream);
+
+        assertEquals(2, exported);
+        String output = outputStream.toString(StandardCharsets.UTF_8);
+        assertTrue(output.endsWith("\n"));
+        String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        // Raw lines, since readTree would skip a separator left in front of a row
+        assertTrue(lines[0].startsWith("{") && lines[0].endsWith("}"), lines[0]);
+        assertTrue(lines[1].startsWith("{") && lines[1].endsWith("}"), lines[1]);
+        assertEquals(objectMapper.writeValueAsString(anotherKos), lines[1]);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(kosId.toString(), first.get("id").asText());
+        assertEquals("Kos Test ABC", first.get("name").asText());
+        assertEquals("Kos Lain", objectMapper.readTree(lines[1]).get("name").asText());
+        verify(entityManager).detach(kos);
+        verify(entityManager).detach(anotherKos);
+    }
+
+    @Test
+    void exportKos_EmptyTable_WritesNothing() throws Exception {
+        when(kosRepository.streamAllBy()).thenReturn(Stream.empty());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertEquals(0, kosService.exportKos(outputStream));
+        assertEquals(0, outputStream.size());
+    }
 
     // --- UPDATE ---
     @Test
@@ -242,6 +463,7 @@ class KosServiceTest {
 
         verify(kosRepository, times(1)).findById(kosId); // Verify find was called
         verify(kosRepository, times(1)).save(any(Kos.class)); // Verify save was called
+        verify(eventPublisher, times(1)).publishEvent(any(KosChangedEvent.class));
     }
 
     @Test
@@ -299,6 +521,7 @@ class KosServiceTest {
         // Assert: Verify find and delete were called
         verify(kosRepository, times(1)).findById(kosId);
         verify(kosRepository, times(1)).deleteById(kosId);
+        verify(eventPublisher, times(1)).publishEvent(any(KosChangedEvent.class));
     }
 
     @Test
@@ -332,41 +555,305 @@ class KosServiceTest {
         verify(kosRepository, never()).deleteById(any(UUID.class));
     }
 
-    // --- SEARCH (Optional, based on old test) ---
+    // --- SEARCH ---
     @Test
     void searchKos_Success() {
-        // Arrange: Prepare search keyword and expected results
         String keyword = "Test";
-        List<Kos> expectedResults = List.of(kos); // Assuming 'kos' matches 'Test'
-
-        // Arrange: Mock repository search method
-        when(kosRepository.findKosByNameContainingIgnoreCaseOrAddressContainingIgnoreCaseOrDescriptionContainingIgnoreCase(keyword, keyword, keyword))
-                .thenReturn(expectedResults);
+        KosSummary summary = summaryOf(kos);
+        when(kosRepository.searchIdsByFullText(keyword, 20, 0)).thenReturn(List.of(kosId));
+        when(kosRepository.findSummariesByIdIn(List.of(kosId))).thenReturn(List.of(summary));
 
-        // Act: Call the service search method
-        List<Kos> actualResults = kosService.searchKos(keyword); // Assuming this service method exists
+        List<KosSummary> actualResults = kosService.searchKos(keyword, 20, 0);
 
-        // Assert: Verify the results
         assertNotNull(actualResults);
-        assertEquals(expectedResults.size(), actualResults.size());
-        assertEquals(expectedResults.getFirst(), actualResults.getFirst());
-        verify(kosRepository, times(1)).findKosByNameContainingIgnoreCaseOrAddressContainingIgnoreCaseOrDescriptionContainingIgnoreCase(keyword, keyword, keyword);
+        assertEquals(List.of(summary), actualResults);
+        verify(kosRepository, times(1)).searchIdsByFullText(keyword, 20, 0);
+        verify(kosRepository, never()).findAllById(any());
     }
 
     @Test
     void searchKos_NoResults() {
-        // Arrange: Prepare search keyword
         String keyword = "NotFoundKeyword";
-        // Arrange: Mock repository search method to return empty list
-        when(kosRepository.findKosByNameContainingIgnoreCaseOrAddressContainingIgnoreCaseOrDescriptionContainingIgnoreCase(keyword, keyword, keyword))
-                .thenReturn(Collections.emptyList());
+        when(kosRepository.searchIdsByFullText(keyword, 20, 40)).thenReturn(Collections.emptyList());
 
-        // Act: Call the service search method
-        List<Kos> actualResults = kosService.searchKos(keyword);
+        List<KosSummary> actualResults = kosService.searchKos(keyword, 20, 40);
 
-        // Assert: Verify the list is empty
         assertNotNull(actualResults);
         assertTrue(actualResults.isEmpty());
-        verify(kosRepository, times(1)).findKosByNameContainingIgnoreCaseOrAddressContainingIgnoreCaseOrDescriptionContainingIgnoreCase(keyword, keyword, keyword);
+        verify(kosRepository, times(1)).searchIdsByFullText(keyword, 20, 40);
+        // No whole-word match anywhere, so trigram infix matching gets a chance
+        verify(kosRepository, times(1)).searchIdsBySimilarity("notfoundkeyword", 20, 40);
+        verify(kosRepository, never()).findSummariesByIdIn(any());
+    }
+
+    @Test
+    void searchKos_IndexReady_ReturnsKosInIndexRankOrder() {
+        Kos anotherKos = new Kos();
+        anotherKos.setId(UUID.randomUUID());
+        KosSummary summary = summaryOf(kos);
+        KosSummary anotherSummary = summaryOf(anotherKos);
+        UUID deletedId = UUID.randomUUID();
+        when(kosSearchIndex.isReady()).thenReturn(true);
+        when(kosSearchIndex.search("kampus", 20, 0)).thenReturn(List.of(anotherKos.getId(), deletedId, kosId));
+        // The database returns rows in arbitrary order, and none for a Kos deleted after it was indexed
+        when(kosRepository.findSummariesByIdIn(List.of(anotherKos.getId(), deletedId, kosId)))
+                .thenReturn(List.of(summary, anotherSummary));
+
+        List<KosSummary> actualResults = kosService.searchKos("kampus", 20, 0);
+
+        assertEquals(List.of(anotherSummary, summary), actualResults);
+        verify(kosRepository, never()).searchIdsByFullText(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchKos_NoWholeWordMatch_FallsBackToTrigramSearch() {
+        ReflectionTestUtils.setField(kosService, "trigramWordSimilarityThreshold", 0.5);
+        when(kosSearchIndex.isReady()).thenReturn(true);
+        when(kosSearchIndex.search("Margon", 20, 0)).thenReturn(List.of());
+        when(kosRepository.searchIdsBySimilarity("margon", 20, 0)).thenReturn(List.of(kosId));
+        KosSummary summary = summaryOf(kos);
+        when(kosRepository.findSummariesByIdIn(List.of(kosId))).thenReturn(List.of(summary));
+
+        assertEquals(List.of(summary), kosService.searchKos(" Margon ", 20, 0));
+        verify(kosRepository).setWordSimilarityThreshold("0.5");
+    }
+
+    @Test
+    void searchKos_PagePastWholeWordResults_DoesNotFallBack() {
+        when(kosRepository.searchIdsByFullText("kampus", 20, 40)).thenReturn(Collections.emptyList());
+        when(kosRepository.searchIdsByFullText("kampus", 1, 0)).thenReturn(List.of(kosId));
+
+        assertTrue(kosService.searchKos("kampus", 20, 40).isEmpty());
+        verify(kosRepository, never()).searchIdsBySimilarity(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void searchKos_LimitAboveMaximum_IsCappedAndKeywordTrimmed() {
+        KosSummary summary = summaryOf(kos);
+        when(kosRepository.searchIdsByFullText("kampus", KosServiceImpl.MAX_PAGE_SIZE, 0)).thenReturn(List.of(kosId));
+        when(kosRepository.findSummariesByIdIn(List.of(kosId))).thenReturn(List.of(summary));
+
+        assertEquals(List.of(summary), kosService.searchKos("  kampus ", 5_000, 0));
+    }
+
+    @Test
+    void searchKos_BlankKeyword_ReturnsEmptyWithoutQuery() {
+        assertTrue(kosService.searchKos("   ", 20, 0).isEmpty());
+        assertTrue(kosService.searchKos(null, 20, 0).isEmpty());
+        verifyNoInteractions(kosRepository);
+    }
+
+    @Test
+    void searchKos_InvalidPaging_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> kosService.searchKos("kos", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> kosService.searchKos("kos", 20, -1));
+        verifyNoInteractions(kosRepository);
+    }
+
+    @Test
+    void applyOccupancyChanges_SumsChangesPerKos() {
+        UUID otherKosId = UUID.randomUUID();
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(2), any(LocalDateTime.class))).thenReturn(1);
+        when(kosRepository.addOccupiedRooms(eq(otherKosId), eq(1), any(LocalDateTime.class))).thenReturn(1);
+
+        Set<Integer> rejected = kosService.applyOccupancyChanges(List.of(new KosOccupancyChange(kosId, 1, null),
+                new KosOccupancyChange(otherKosId, 1, null), new KosOccupancyChange(kosId, 1, null)));
+
+        assertTrue(rejected.isEmpty());
+        verify(kosRepository, times(2)).addOccupiedRooms(any(), anyInt(), any());
+        verify(eventPublisher, times(2)).publishEvent(any(KosChangedEvent.class));
+    }
+
+    @Test
+    void applyOccupancyChanges_SumOverflows_AppliesChangesOneByOne() {
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(3), any(LocalDateTime.class))).thenReturn(0);
+        when(kosRepository.existsById(kosId)).thenReturn(true);
+        // Two rooms are left: the first two bookings fit, the third does not
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(1), any(LocalDateTime.class))).thenReturn(1, 1, 0);
+
+        Set<Integer> rejected = kosService.applyOccupancyChanges(List.of(new KosOccupancyChange(kosId, 1, null),
+                new KosOccupancyChange(kosId, 1, null), new KosOccupancyChange(kosId, 1, null)));
+
+        assertEquals(Set.of(2), rejected);
+        verify(eventPublisher).publishEvent(any(KosChangedEvent.class));
+    }
+
+    @Test
+    void applyOccupancyChanges_MissingKos_RejectsAllItsChanges() {
+        UUID missingId = UUID.randomUUID();
+        when(kosRepository.addOccupiedRooms(eq(missingId), eq(2), any(LocalDateTime.class))).thenReturn(0);
+        when(kosRepository.existsById(missingId)).thenReturn(false);
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(1), any(LocalDateTime.class))).thenReturn(1);
+
+        Set<Integer> rejected = kosService.applyOccupancyChanges(List.of(new KosOccupancyChange(missingId, 1, null),
+                new KosOccupancyChange(kosId, 1, null), new KosOccupancyChange(missingId, 1, null)));
+
+        assertEquals(Set.of(0, 2), rejected);
+        ArgumentCaptor<KosChangedEvent> eventCaptor = ArgumentCaptor.forClass(KosChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(kosId, eventCaptor.getValue().getKosId());
+    }
+
+    @Test
+    void applyOccupancyChanges_RecordsRentalIdsOfAppliedChanges() {
+        when(processedRentalEventRepository.findProcessedRentalIds(any())).thenReturn(List.of());
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(2), any(LocalDateTime.class))).thenReturn(1);
+
+        Set<Integer> rejected = kosService.applyOccupancyChanges(List.of(new KosOccupancyChange(kosId, 1, "rental-1"),
+                new KosOccupancyChange(kosId, 1, "rental-2")));
+
+        assertTrue(rejected.isEmpty());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProcessedRentalEvent>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(processedRentalEventRepository).saveAllAndFlush(recorded.capture());
+        assertEquals(List.of("rental-1", "rental-2"),
+                recorded.getValue().stream().map(ProcessedRentalEvent::getRentalId).toList());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        RentalEventsProcessedEvent processed = (RentalEventsProcessedEvent) events.getAllValues().get(1);
+        assertEquals(List.of("rental-1", "rental-2"), processed.getRentalIds());
+    }
+
+    @Test
+    void applyOccupancyChanges_AlreadyProcessed_SkipsWithoutRejecting() {
+        when(processedRentalIdCache.contains("rental-cached")).thenReturn(true);
+        when(processedRentalEventRepository.findProcessedRentalIds(any())).thenReturn(List.of("rental-stored"));
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(1), any(LocalDateTime.class))).thenReturn(1);
+
+        // A cached redelivery, a stored redelivery, a new event and a repeat of it within the batch
+        Set<Integer> rejected = kosService.applyOccupancyChanges(List.of(
+                new KosOccupancyChange(kosId, 1, "rental-cached"),
+                new KosOccupancyChange(kosId, 1, "rental-stored"),
+                new KosOccupancyChange(kosId, 1, "rental-new"),
+                new KosOccupancyChange(kosId, 1, "rental-new")));
+
+        assertTrue(rejected.isEmpty());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Set<String>> checked = ArgumentCaptor.forClass(Set.class);
+        verify(processedRentalEventRepository).findProcessedRentalIds(checked.capture());
+        assertEquals(Set.of("rental-stored", "rental-new"), checked.getValue());
+        verify(kosRepository).addOccupiedRooms(eq(kosId), eq(1), any(LocalDateTime.class));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProcessedRentalEvent>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(processedRentalEventRepository).saveAllAndFlush(recorded.capture());
+        assertEquals(List.of("rental-new"), recorded.getValue().stream().map(ProcessedRentalEvent::getRentalId).toList());
+    }
+
+    @Test
+    void applyOccupancyChanges_AllAlreadyProcessed_ChangesNothing() {
+        when(processedRentalIdCache.contains("rental-1")).thenReturn(true);
+
+        Set<Integer> rejected = kosService.applyOccupancyChanges(List.of(new KosOccupancyChange(kosId, 1, "rental-1")));
+
+        assertTrue(rejected.isEmpty());
+        verifyNoInteractions(kosRepository);
+        verify(processedRentalEventRepository, never()).saveAllAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any(KosChangedEvent.class));
+    }
+
+    @Test
+    void applyOccupancyChanges_RejectedChange_IsNotRecorded() {
+        when(processedRentalEventRepository.findProcessedRentalIds(any())).thenReturn(List.of());
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(1), any(LocalDateTime.class))).thenReturn(0);
+        when(kosRepository.existsById(kosId)).thenReturn(true);
+
+        Set<Integer> rejected = kosService.applyOccupancyChanges(List.of(new KosOccupancyChange(kosId, 1, "rental-1")));
+
+        assertEquals(Set.of(0), rejected);
+        verify(processedRentalEventRepository, never()).saveAllAndFlush(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void applyOccupancyChanges_RepeatOfRejectedChange_IsNotCachedAsProcessed() {
+        UUID otherKosId = UUID.randomUUID();
+        when(processedRentalEventRepository.findProcessedRentalIds(any())).thenReturn(List.of());
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(1), any(LocalDateTime.class))).thenReturn(0);
+        when(kosRepository.existsById(kosId)).thenReturn(true);
+        when(kosRepository.addOccupiedRooms(eq(otherKosId), eq(1), any(LocalDateTime.class))).thenReturn(1);
+
+        // rental-1 is redelivered within the batch, and its first copy does not fit
+        Set<Integer> rejected = kosService.applyOccupancyChanges(List.of(
+                new KosOccupancyChange(kosId, 1, "rental-1"),
+                new KosOccupancyChange(otherKosId, 1, "rental-2"),
+                new KosOccupancyChange(kosId, 1, "rental-1")));
+
+        assertEquals(Set.of(0), rejected);
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        RentalEventsProcessedEvent processed = (RentalEventsProcessedEvent) events.getAllValues().get(1);
+        assertEquals(List.of("rental-2"), processed.getRentalIds());
+    }
+
+    @Test
+    void applyOccupancyChanges_ConcurrentDuplicate_PropagatesSoTheTransactionRollsBack() {
+        when(processedRentalEventRepository.findProcessedRentalIds(any())).thenReturn(List.of());
+        when(kosRepository.addOccupiedRooms(eq(kosId), eq(1), any(LocalDateTime.class))).thenReturn(1);
+        when(processedRentalEventRepository.saveAllAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        List<KosOccupancyChange> changes = List.of(new KosOccupancyChange(kosId, 1, "rental-1"));
+        assertThrows(DataIntegrityViolationException.class, () -> kosService.applyOccupancyChanges(changes));
+    }
+
+    @Test
+    void filterKos_UnsetBounds_UseOpenDefaultsAndNewestSort() {
+        KosSummary summary = new KosSummary(kosId, kos.getName(), kos.getAddress(), kos.getMonthlyRentPrice(),
+                10, true, LocalDateTime.now());
+        PageRequest expectedPage = PageRequest.of(0, 20, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+        when(kosRepository.filterListedSummaries(KosServiceImpl.MIN_FILTER_PRICE, KosServiceImpl.MAX_FILTER_PRICE, 0, expectedPage))
+                .thenReturn(new SliceImpl<>(List.of(summary), expectedPage, true));
+
+        SlicePage<KosSummary> result = kosService.filterKos(KosFilter.builder().build(), 0, 20);
+
+        assertEquals(List.of(summary), result.getItems());
+        assertEquals(0, result.getPage());
+        assertEquals(20, result.getSize());
+        assertTrue(result.isHasNext());
+    }
+
+    @Test
+    void filterKos_PriceSort_CapsPageSizeAndPassesCriteria() {
+        BigDecimal minPrice = new BigDecimal("500000");
+        BigDecimal maxPrice = new BigDecimal("2000000");
+        PageRequest expectedPage = PageRequest.of(2, KosServiceImpl.MAX_PAGE_SIZE,
+                Sort.by(Sort.Order.asc("monthlyRentPrice"), Sort.Order.asc("id")));
+        when(kosRepository.filterListedSummaries(minPrice, maxPrice, 3, expectedPage))
+                .thenReturn(new SliceImpl<>(Collections.emptyList(), expectedPage, false));
+
+        KosFilter filter = KosFilter.builder()
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minFreeRooms(3)
+                .sort(KosFilter.Sort.PRICE)
+                .build();
+        SlicePage<KosSummary> result = kosService.filterKos(filter, 2, 5_000);
+
+        assertTrue(result.getItems().isEmpty());
+        assertEquals(KosServiceImpl.MAX_PAGE_SIZE, result.getSize());
+        assertFalse(result.isHasNext());
+    }
+
+    @Test
+    void filterKos_InvalidCriteria_ThrowsIllegalArgumentException() {
+        KosFilter invertedRange = KosFilter.builder()
+                .minPrice(new BigDecimal("2000000"))
+                .maxPrice(new BigDecimal("500000"))
+                .build();
+        KosFilter negativeRooms = KosFilter.builder().minFreeRooms(-1).build();
+
+        assertThrows(IllegalArgumentException.class, () -> kosService.filterKos(invertedRange, 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> kosService.filterKos(negativeRooms, 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> kosService.filterKos(KosFilter.builder().build(), -1, 20));
+        assertThrows(IllegalArgumentException.class, () -> kosService.filterKos(KosFilter.builder().build(), 0, 0));
+        verify(kosRepository, never()).filterListedSummaries(any(), any(), anyInt(), any(Pageable.class));
+    }
+
+    // The row the repository's summary queries would select for a Kos
+    private static KosSummary summaryOf(Kos kos) {
+        int occupiedRooms = kos.getOccupiedRooms() != null ? kos.getOccupiedRooms() : 0;
+        Integer freeRooms = kos.getNumRooms() != null ? kos.getNumRooms() - occupiedRooms : null;
+        return new KosSummary(kos.getId(), kos.getName(), kos.getAddress(), kos.getMonthlyRentPrice(),
+                freeRooms, kos.getIsListed(), kos.getCreatedAt());
     }
 }
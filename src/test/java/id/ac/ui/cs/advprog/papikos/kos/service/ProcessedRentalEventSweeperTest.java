@@ -0,0 +1,48 @@
+package id.ac.ui.cs.advprog.papikos.kos.service;
+
+import id.ac.ui.cs.advprog.papikos.kos.repository.ProcessedRentalEventRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProcessedRentalEventSweeperTest {
+
+    private static final int BATCH = ProcessedRentalEventSweeper.DELETE_BATCH_SIZE;
+
+    @Mock
+    private ProcessedRentalEventRepository processedRentalEventRepository;
+
+    @Test
+    void sweep_DeletesInBatchesUntilAShortOne() {
+        when(processedRentalEventRepository.deleteProcessedBefore(any(LocalDateTime.class), eq(BATCH)))
+                .thenReturn(BATCH, BATCH, 3);
+
+        new ProcessedRentalEventSweeper(processedRentalEventRepository, Duration.ofDays(7)).sweep();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(processedRentalEventRepository, times(3)).deleteProcessedBefore(cutoff.capture(), eq(BATCH));
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusDays(7).plusMinutes(1)));
+        assertEquals(1, cutoff.getAllValues().stream().distinct().count());
+    }
+
+    @Test
+    void sweep_NothingToDelete_RunsOneQuery() {
+        when(processedRentalEventRepository.deleteProcessedBefore(any(LocalDateTime.class), eq(BATCH))).thenReturn(0);
+
+        new ProcessedRentalEventSweeper(processedRentalEventRepository, Duration.ofDays(7)).sweep();
+
+        verify(processedRentalEventRepository, times(1)).deleteProcessedBefore(any(LocalDateTime.class), eq(BATCH));
+    }
+}